@@ -2,78 +2,411 @@ import java.util.*;
 
 public class BFSSolver extends Solver{
     /*
-    Solves the Sudoku puzzle using breadth-first search
-    This naive solver is not optimized for hard Sudoku with many empty cells
-    A memory error may occur if the search space is too large.
+    Solves the Sudoku puzzle using breadth-first search, level by level: every state on a level has the same number of
+    filled cells, and a state is expanded by filling its most constrained empty cell with each of its candidates.
+    States are packed into a few longs rather than stored as graphs (4 bits per cell on a 9x9 board, 6 longs per
+    state), and are deduplicated exactly with an open-addressing hash set of packed states. A state can only repeat
+    within its own level, so the set only ever holds one level.
+    The frontier is capped: once a level would grow beyond the cap, the search either continues depth-first from every
+    state of the frontier (DEPTH_FIRST: complete, with memory bounded by the cap), or keeps only the cap states with
+    the most remaining candidates (BEAM: bounded time as well, but it may discard the solution, so a beam search that
+    has discarded states and fails ends with the status INCOMPLETE rather than UNSAT).
     */
+    public enum FrontierPolicy { DEPTH_FIRST, BEAM }
+
+    public static final int DEFAULT_FRONTIER_CAP = 1 << 20;
+
+    //attributes
+    private final int frontierCap;
+    private final FrontierPolicy frontierPolicy;
+
+    //layout of the board and of the packed states
+    private SudokuTopology topology;
+    private int numCells;
+    private int bitsPerCell;
+    private int cellsPerWord;
+    private int wordsPerState;
+
+    //the state currently being expanded, unpacked, with the values used in each house as bitmasks
+    private int[] values;
+    private int[] houseMasks;
+    private long[] packedState; //scratch space for packing a state before it is copied into a buffer
 
     public BFSSolver(Graph sudokuGraph) {
+        this(sudokuGraph, DEFAULT_FRONTIER_CAP, FrontierPolicy.DEPTH_FIRST);
+    }
+
+    public BFSSolver(Graph sudokuGraph, int frontierCap, FrontierPolicy frontierPolicy) {
         super(sudokuGraph);
+        if (frontierCap < 1) {
+            throw new IllegalArgumentException("The frontier cap must be at least 1, got " + frontierCap);
+        }
+        this.frontierCap = frontierCap;
+        this.frontierPolicy = frontierPolicy;
     }
 
     @Override
-    public boolean solve() {
-        Queue<Graph> queue = new ArrayDeque<>();
-        Set<Integer> seen = new HashSet<>(); //tracks visited states (to avoid repetition)
-
-        //stores the initial graph state in the queue
-        queue.add(sudokuGraph.copy());
-        seen.add(getGraphHash(sudokuGraph));
-
-        while (!queue.isEmpty()) {
-            Graph currentGraph = queue.poll(); //expands the current state of the graph
-
-            //finds the next unassigned node
-            Optional<Node> unassignedNodeOpt = findUnassignedNode(currentGraph);
-
-            if (unassignedNodeOpt.isEmpty()) {
-                //if all nodes are assigned, check if the graph is a solution, and update the sudokuGraph accordingly
-                if (currentGraph.isSolution()) {
-                    //uses info from currentGraph to update nodes in SudokuGraph
-                    Optional<Node> optUnassignedSudokuNode = findUnassignedNode(sudokuGraph);
-                    while(optUnassignedSudokuNode.isPresent()) {
-                        Node unassignedNode = optUnassignedSudokuNode.get();
-                        Position sudokuNodePosn = unassignedNode.getPosn();
-                        int newVal = currentGraph.getNode(sudokuNodePosn).get().getValue();
-                        unassignedNode.changeValue(newVal);
-                        optUnassignedSudokuNode = findUnassignedNode(sudokuGraph);
-                    }
+    protected boolean search() {
+        topology = sudokuGraph.getTopology();
+        if (topology == null) {
+            throw new IllegalStateException("BFSSolver can only solve graphs constructed from a Sudoku board");
+        }
+        numCells = topology.getNumCells();
+        bitsPerCell = 32 - Integer.numberOfLeadingZeros(topology.getSize());
+        cellsPerWord = 64 / bitsPerCell;
+        wordsPerState = (numCells + cellsPerWord - 1) / cellsPerWord;
+        values = new int[numCells];
+        houseMasks = new int[topology.getNumHouses()];
+        packedState = new long[wordsPerState];
+
+        //stores the initial graph state as the first level
+        for (Node node : sudokuGraph.getAllNodes()) {
+            values[node.getIndex()] = node.getValue();
+        }
+        if (!computeHouseMasks()) {
+            return false; //the clues already conflict
+        }
+        StateBuffer level = new StateBuffer(wordsPerState, 1);
+        level.add(pack(), 0);
+        PackedStateSet seen = new PackedStateSet(wordsPerState);
+
+        for (int depth = 0; level.size() > 0; depth++) {
+            StateBuffer nextLevel = new StateBuffer(wordsPerState, frontierCap);
+            seen.clear();
+
+            for (int i = 0; i < level.size(); i++) {
+                if (isOutOfBudget()) {
+                    return false; //the node limit also bounds the memory of the levels
+                }
+                if (frontierPolicy == FrontierPolicy.DEPTH_FIRST && nextLevel.size() + topology.getSize() > frontierCap) {
+                    //the frontier is full: finishes the search depth-first from every state still waiting
+                    return depthFirstFrom(nextLevel, depth + 1) || depthFirstFrom(level, i, depth);
+                }
+
+                unpack(level, i);
+                computeHouseMasks();
+                stats.visit(depth);
+                if (isBetterPartial(depth)) {
+                    recordPartial(depth, values.clone());
+                }
+                int cell = findMostConstrainedCell();
+                if (cell < 0) {
+                    writeSolution(); //all nodes are assigned, without conflicts by construction
                     return true;
                 }
-            }
-            else {
-                //generates next level of graph states
-                Node currentNode = unassignedNodeOpt.get();
-                for (int newVal = 1; newVal <= 9; newVal++) {
-                    if (currentNode.isValidAssignment(newVal)) {
-                        //creates a new graph state with a valid value from 1 to 9 assigned to an unassigned node
-                        Graph newGraph = currentGraph.copy();
-                        Position nodePosn = currentNode.getPosn();
-                        Node newNode = newGraph.getNode(nodePosn).get();
-                        newNode.changeValue(newVal);
-
-                        //adds the new graph state to the queue if it has not already been enqueued
-                        int graphHash = getGraphHash(newGraph);
-                        if (!seen.contains(graphHash)) {
-                            queue.add(newGraph);
-                            seen.add(graphHash);
-                        }
+
+                //generates the next level of states, one per candidate of the most constrained cell
+                int score = countRemainingCandidates();
+                int candidates = getCandidates(cell);
+                for (int mask = candidates; mask != 0; mask &= mask - 1) {
+                    int value = Integer.numberOfTrailingZeros(mask);
+                    values[cell] = value;
+                    if (Integer.bitCount(candidates) > 1) {
+                        stats.guess();
+                    }
+                    long[] child = pack();
+                    if (seen.add(child) && !nextLevel.offer(child, score - countCandidatesRemovedBy(cell, value))) {
+                        markIncomplete(); //the beam has dropped a state, which may have led to the solution
                     }
                 }
+                values[cell] = 0;
+            }
+            level = nextLevel;
+        }
+        return false;
+    }
+
+    //---- helper methods for the depth-first fallback ----
+    private boolean depthFirstFrom(StateBuffer states, int depth) {
+        return depthFirstFrom(states, 0, depth);
+    }
+
+    private boolean depthFirstFrom(StateBuffer states, int from, int depth) {
+        for (int i = from; i < states.size() && !isStopped(); i++) {
+            unpack(states, i);
+            computeHouseMasks();
+            if (depthFirst(depth)) {
+                writeSolution();
+                return true;
             }
         }
         return false;
     }
 
-    //generates an integer representation of each graph, to avoid repetitions in the search space
-    private int getGraphHash(Graph graph) {
-        int hash = 0;
-        int multiplier = 1;
+    private boolean depthFirst(int depth) {
+        stats.visit(depth);
+        if (isOutOfBudget()) {
+            return false;
+        }
+        if (isBetterPartial(depth)) {
+            recordPartial(depth, values.clone());
+        }
+        int cell = findMostConstrainedCell();
+        if (cell < 0) {
+            return true;
+        }
+        int[] houses = topology.getHousesOfCell(cell);
+        int candidates = getCandidates(cell);
+        for (int mask = candidates; mask != 0; mask &= mask - 1) {
+            int value = Integer.numberOfTrailingZeros(mask);
+            int bit = 1 << value;
+            values[cell] = value;
+            if (Integer.bitCount(candidates) > 1) {
+                stats.guess();
+            }
+            for (int house : houses) {
+                houseMasks[house] |= bit;
+            }
+
+            //recursive step
+            if (depthFirst(depth + 1)) {
+                return true;
+            }
+
+            //backtracking
+            for (int house : houses) {
+                houseMasks[house] &= ~bit;
+            }
+            stats.backtrack();
+            if (isStopped()) {
+                break;
+            }
+        }
+        values[cell] = 0;
+        return false;
+    }
+
+    //---- helper methods on the unpacked state ----
+    //fills houseMasks from values, returning false if two cells of a house hold the same value
+    private boolean computeHouseMasks() {
+        Arrays.fill(houseMasks, 0);
+        boolean consistent = true;
+        for (int cell = 0; cell < numCells; cell++) {
+            if (values[cell] != 0) {
+                int bit = 1 << values[cell];
+                for (int house : topology.getHousesOfCell(cell)) {
+                    consistent &= (houseMasks[house] & bit) == 0;
+                    houseMasks[house] |= bit;
+                }
+            }
+        }
+        return consistent;
+    }
+
+    private int getCandidates(int cell) {
+        int[] houses = topology.getHousesOfCell(cell);
+        int used = houseMasks[houses[0]] | houseMasks[houses[1]] | houseMasks[houses[2]];
+        return ((1 << (topology.getSize() + 1)) - 2) & ~used;
+    }
+
+    //the empty cell with the fewest candidates (possibly none), or -1 if the board is full
+    private int findMostConstrainedCell() {
+        int bestCell = -1;
+        int bestCount = Integer.MAX_VALUE;
+        for (int cell = 0; cell < numCells; cell++) {
+            if (values[cell] == 0) {
+                int count = Integer.bitCount(getCandidates(cell));
+                if (count < bestCount) {
+                    bestCount = count;
+                    bestCell = cell;
+                    if (count == 0) {
+                        break;
+                    }
+                }
+            }
+        }
+        return bestCell;
+    }
+
+    //the total number of candidates of the empty cells: the score used to rank states in a beam
+    private int countRemainingCandidates() {
+        int total = 0;
+        for (int cell = 0; cell < numCells; cell++) {
+            if (values[cell] == 0) {
+                total += Integer.bitCount(getCandidates(cell));
+            }
+        }
+        return total;
+    }
+
+    //how many candidates disappear when a value is placed in an (otherwise empty) cell
+    private int countCandidatesRemovedBy(int cell, int value) {
+        int removed = Integer.bitCount(getCandidates(cell));
+        int bit = 1 << value;
+        for (int peer : topology.getPeers(cell)) {
+            if (values[peer] == 0 && (getCandidates(peer) & bit) != 0) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private void writeSolution() {
+        for (int cell = 0; cell < numCells; cell++) {
+            sudokuGraph.getNode(cell).changeValue(values[cell]);
+        }
+    }
+
+    //---- packing ----
+    private long[] pack() {
+        long[] state = packedState;
+        Arrays.fill(state, 0);
+        for (int cell = 0; cell < numCells; cell++) {
+            state[cell / cellsPerWord] |= (long) values[cell] << ((cell % cellsPerWord) * bitsPerCell);
+        }
+        return state;
+    }
+
+    private void unpack(StateBuffer states, int index) {
+        long cellMask = (1L << bitsPerCell) - 1;
+        for (int cell = 0; cell < numCells; cell++) {
+            long word = states.getWord(index, cell / cellsPerWord);
+            values[cell] = (int) ((word >>> ((cell % cellsPerWord) * bitsPerCell)) & cellMask);
+        }
+    }
+
+    //a level of packed states stored back to back in one long array
+    //once full, it becomes a min-heap on the scores, and a better state replaces the worst one (beam)
+    private static final class StateBuffer {
+        private final int wordsPerState;
+        private final int capacity;
+        private long[] words;
+        private int[] scores;
+        private int size = 0;
+        private boolean isHeap = false;
 
-        for (Node node : graph.getAllNodes()) {
-            hash += node.getValue() * multiplier;
-            multiplier *= 10;
+        private StateBuffer(int wordsPerState, int capacity) {
+            this.wordsPerState = wordsPerState;
+            this.capacity = capacity;
+            this.words = new long[Math.min(capacity, 1024) * wordsPerState];
+            this.scores = new int[Math.min(capacity, 1024)];
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private long getWord(int index, int word) {
+            return words[index * wordsPerState + word];
+        }
+
+        private void add(long[] state, int score) {
+            if (size == scores.length) {
+                int newLength = (int) Math.min(capacity, 2L * size);
+                words = Arrays.copyOf(words, newLength * wordsPerState);
+                scores = Arrays.copyOf(scores, newLength);
+            }
+            System.arraycopy(state, 0, words, size * wordsPerState, wordsPerState);
+            scores[size++] = score;
+        }
+
+        //adds a state, or once the buffer is full, replaces the lowest-scoring state if this one scores higher;
+        //returns false if a state was dropped (this one or the one it replaced)
+        private boolean offer(long[] state, int score) {
+            if (size < capacity) {
+                add(state, score);
+                return true;
+            }
+            if (!isHeap) {
+                for (int i = size / 2 - 1; i >= 0; i--) {
+                    siftDown(i);
+                }
+                isHeap = true;
+            }
+            if (score > scores[0]) {
+                System.arraycopy(state, 0, words, 0, wordsPerState);
+                scores[0] = score;
+                siftDown(0);
+            }
+            return false;
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int smallest = index;
+                for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                    if (scores[child] < scores[smallest]) {
+                        smallest = child;
+                    }
+                }
+                if (smallest == index) {
+                    return;
+                }
+                swap(index, smallest);
+                index = smallest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int score = scores[i];
+            scores[i] = scores[j];
+            scores[j] = score;
+            for (int w = 0; w < wordsPerState; w++) {
+                long word = words[i * wordsPerState + w];
+                words[i * wordsPerState + w] = words[j * wordsPerState + w];
+                words[j * wordsPerState + w] = word;
+            }
+        }
+    }
+
+    //an exact set of packed states, using open addressing with linear probing over one long array
+    private static final class PackedStateSet {
+        private final int wordsPerState;
+        private long[] keys;
+        private boolean[] occupied;
+        private int size = 0;
+
+        private PackedStateSet(int wordsPerState) {
+            this.wordsPerState = wordsPerState;
+            this.keys = new long[1024 * wordsPerState];
+            this.occupied = new boolean[1024];
+        }
+
+        private void clear() {
+            Arrays.fill(occupied, false);
+            size = 0;
+        }
+
+        //adds a state, returning false if it was already present
+        private boolean add(long[] state) {
+            if (2 * (size + 1) > occupied.length) {
+                grow();
+            }
+            int mask = occupied.length - 1;
+            for (int slot = hash(state) & mask; ; slot = (slot + 1) & mask) {
+                if (!occupied[slot]) {
+                    occupied[slot] = true;
+                    System.arraycopy(state, 0, keys, slot * wordsPerState, wordsPerState);
+                    size++;
+                    return true;
+                }
+                if (Arrays.equals(keys, slot * wordsPerState, (slot + 1) * wordsPerState, state, 0, wordsPerState)) {
+                    return false;
+                }
+            }
+        }
+
+        private int hash(long[] state) {
+            long h = 0;
+            for (long word : state) {
+                h = (h ^ word) * 0x9E3779B97F4A7C15L;
+            }
+            return (int) (h ^ (h >>> 32));
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            boolean[] oldOccupied = occupied;
+            keys = new long[2 * oldKeys.length];
+            occupied = new boolean[2 * oldOccupied.length];
+            size = 0;
+            long[] state = new long[wordsPerState];
+            for (int slot = 0; slot < oldOccupied.length; slot++) {
+                if (oldOccupied[slot]) {
+                    System.arraycopy(oldKeys, slot * wordsPerState, state, 0, wordsPerState);
+                    add(state);
+                }
+            }
         }
-        return hash;
     }
 }
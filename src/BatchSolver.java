@@ -0,0 +1,404 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+public class BatchSolver {
+    /*
+    Solves a stream of Sudoku boards across several threads of a work-stealing ForkJoinPool.
+    Boards are pulled from the stream on the calling thread and handed to the pool through a bounded window, so
+    memory stays bounded however long the stream is. Results are delivered on the calling thread, either in input
+    order or as soon as each board completes. Every run records its throughput and a histogram of per-board latencies;
+    with statistics collection turned on, each solver's counters are kept with its result and aggregated as well,
+    together with the slowest boards of the run.
+    In counting mode, each board's solutions are counted up to a cap instead (a cap of 2 checks that boards are
+    unique); the solvers' counting searches fork their subtrees into the batch's own pool.
+    Every board can be given a time or node budget: a board whose solver runs out of it is reported with the status
+    TIMEOUT and the best partial assignment found, or is first retried from scratch with a fallback solver if one is set
+    (as are boards on which an incomplete search, such as a beam search, ended INCOMPLETE).
+     */
+    private static final int NUM_SLOWEST = 10;
+
+    //the outcome of solving one board of a batch
+    public static final class Result {
+        private final int index;
+        private final Graph graph;
+        private final boolean solved;
+        private final long numSolutions;
+        private final SolveStatus status;
+        private final boolean retried;
+        private final int[] bestPartial; //only kept for a stopped solve
+        private final long solveNanos;
+        private final SolverStats stats;
+
+        private Result(int index, Graph graph, boolean solved, long numSolutions, SolveStatus status, boolean retried,
+                       int[] bestPartial, long solveNanos, SolverStats stats) {
+            this.index = index;
+            this.graph = graph;
+            this.solved = solved;
+            this.numSolutions = numSolutions;
+            this.status = status;
+            this.retried = retried;
+            this.bestPartial = bestPartial;
+            this.solveNanos = solveNanos;
+            this.stats = stats;
+        }
+
+        //the position of the board in the input stream, starting at 0
+        public int getIndex() {
+            return index;
+        }
+
+        //the graph the solver worked on: filled with the solution if one was found (left unchanged in counting mode)
+        public Graph getGraph() {
+            return graph;
+        }
+
+        public boolean isSolved() {
+            return solved;
+        }
+
+        //the number of solutions found, up to the cap, in counting mode; -1 when the board was only solved
+        public long getNumSolutions() {
+            return numSolutions;
+        }
+
+        public boolean isUnique() {
+            return numSolutions == 1 && status == SolveStatus.SOLVED;
+        }
+
+        //how the solve (or count) ended; a count with the status TIMEOUT or CANCELLED is only a lower bound
+        public SolveStatus getStatus() {
+            return status;
+        }
+
+        //whether the board ran out of its budget and was solved again by the fallback solver
+        public boolean isRetried() {
+            return retried;
+        }
+
+        //the deepest partial assignment reached by a solve stopped by its budget or cancelled, or null otherwise
+        public int[] getBestPartialAssignment() {
+            return (bestPartial == null) ? null : bestPartial.clone();
+        }
+
+        //the time taken to build the graph and solve it
+        public long getSolveNanos() {
+            return solveNanos;
+        }
+
+        //the counters of the solve (all zero unless statistics collection was turned on)
+        public SolverStats getStats() {
+            return stats;
+        }
+    }
+
+    //attributes
+    private final Function<Graph, Solver> solverFactory;
+    private final int parallelism;
+    private final int windowSize; //the maximum number of boards in flight at once
+    private boolean collectStats = false;
+
+    //the budget of each board, and the solver used again on the boards that run out of it
+    private long timeLimitNanos = Long.MAX_VALUE;
+    private long nodeLimit = Long.MAX_VALUE;
+    private CancellationToken cancellationToken;
+    private Function<Graph, Solver> fallbackFactory;
+    private long fallbackTimeLimitNanos = Long.MAX_VALUE;
+
+    //statistics of the most recent run
+    private int numBoards;
+    private int numSolved;
+    private int numTimedOut;
+    private int numRetried;
+    private long elapsedNanos;
+    private LatencyHistogram latencyHistogram = new LatencyHistogram();
+    private LatencyHistogram nodesVisitedHistogram = new LatencyHistogram();
+    private LatencyHistogram guessesHistogram = new LatencyHistogram();
+    private PriorityQueue<Result> slowest = new PriorityQueue<>(Comparator.comparingLong(Result::getSolveNanos));
+
+    //constructors
+    public BatchSolver(Function<Graph, Solver> solverFactory) { //uses every available core
+        this(solverFactory, Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchSolver(Function<Graph, Solver> solverFactory, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+        }
+        this.solverFactory = solverFactory;
+        this.parallelism = parallelism;
+        this.windowSize = 4 * parallelism;
+    }
+
+    //getters for the statistics of the most recent run
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getNumBoards() {
+        return numBoards;
+    }
+
+    public int getNumSolved() {
+        return numSolved;
+    }
+
+    //the boards whose solve still ran out of its budget (after the fallback, if any)
+    public int getNumTimedOut() {
+        return numTimedOut;
+    }
+
+    public int getNumRetried() {
+        return numRetried;
+    }
+
+    public double getElapsedSeconds() {
+        return elapsedNanos / 1_000_000_000.0;
+    }
+
+    //the number of boards solved per second of wall time
+    public double getThroughput() {
+        return (elapsedNanos == 0) ? 0 : numBoards / getElapsedSeconds();
+    }
+
+    //per-board latencies in nanoseconds
+    public LatencyHistogram getLatencyHistogram() {
+        return latencyHistogram;
+    }
+
+    //only filled while statistics collection is turned on
+    public LatencyHistogram getNodesVisitedHistogram() {
+        return nodesVisitedHistogram;
+    }
+
+    public LatencyHistogram getGuessesHistogram() {
+        return guessesHistogram;
+    }
+
+    //the slowest boards of the run, slowest first
+    public List<Result> getSlowest() {
+        List<Result> results = new ArrayList<>(slowest);
+        results.sort(Comparator.comparingLong(Result::getSolveNanos).reversed());
+        return results;
+    }
+
+    //a JSON summary of the most recent run: throughput, histograms and the slowest boards
+    public String statsToJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"boards\":").append(numBoards)
+                .append(",\"solved\":").append(numSolved)
+                .append(",\"timedOut\":").append(numTimedOut)
+                .append(",\"retried\":").append(numRetried)
+                .append(",\"elapsedNanos\":").append(elapsedNanos)
+                .append(",\"throughput\":").append(String.format(Locale.ROOT, "%.1f", getThroughput()))
+                .append(",\"latencyNanos\":").append(latencyHistogram.toJson());
+        if (collectStats) {
+            json.append(",\"nodesVisited\":").append(nodesVisitedHistogram.toJson())
+                    .append(",\"guesses\":").append(guessesHistogram.toJson());
+        }
+        json.append(",\"slowest\":[");
+        List<Result> slowestResults = getSlowest();
+        for (int i = 0; i < slowestResults.size(); i++) {
+            Result result = slowestResults.get(i);
+            json.append(i == 0 ? "" : ",").append("{\"index\":").append(result.getIndex())
+                    .append(",\"solveNanos\":").append(result.getSolveNanos())
+                    .append(",\"stats\":").append(result.getStats().toJson()).append("}");
+        }
+        return json.append("]}").toString();
+    }
+
+    //methods
+    //turns on the counters of every solver the batch creates
+    public void setCollectStats(boolean collectStats) {
+        this.collectStats = collectStats;
+    }
+
+    //stops each board's solve after the given time, with the status TIMEOUT
+    public void setTimeLimitNanos(long timeLimitNanos) {
+        if (timeLimitNanos <= 0) {
+            throw new IllegalArgumentException("The time limit must be positive, got " + timeLimitNanos);
+        }
+        this.timeLimitNanos = timeLimitNanos;
+    }
+
+    //stops each board's solve after the given number of search nodes, with the status TIMEOUT
+    public void setNodeLimit(long nodeLimit) {
+        if (nodeLimit <= 0) {
+            throw new IllegalArgumentException("The node limit must be positive, got " + nodeLimit);
+        }
+        this.nodeLimit = nodeLimit;
+    }
+
+    //stops every board still being solved, and every board after them, once the token is cancelled
+    public void setCancellationToken(CancellationToken cancellationToken) {
+        this.cancellationToken = cancellationToken;
+    }
+
+    //solves the boards that time out (or end INCOMPLETE) again from their clues with another solver, under its own
+    //time limit (and the same node limit); a null factory turns the fallback off
+    public void setFallback(Function<Graph, Solver> fallbackFactory, long fallbackTimeLimitNanos) {
+        if (fallbackTimeLimitNanos <= 0) {
+            throw new IllegalArgumentException("The time limit must be positive, got " + fallbackTimeLimitNanos);
+        }
+        this.fallbackFactory = fallbackFactory;
+        this.fallbackTimeLimitNanos = fallbackTimeLimitNanos;
+    }
+
+    //solves all boards and returns their results in input order
+    public List<Result> solveAll(Stream<int[][]> boards) {
+        List<Result> results = new ArrayList<>();
+        solve(boards, true, results::add);
+        return results;
+    }
+
+    //solves all boards, passing each result to the consumer on the calling thread, either in input order or in order of completion
+    public void solve(Stream<int[][]> boards, boolean inInputOrder, Consumer<Result> onResult) {
+        run(boards.iterator(), Graph::new, 0, inInputOrder, onResult);
+    }
+
+    //as above, for boards given as flat arrays of 81 cell values (e.g. from PuzzleReader.stream)
+    public void solveCells(Stream<int[]> boards, boolean inInputOrder, Consumer<Result> onResult) {
+        run(boards.iterator(), Graph::new, 0, inInputOrder, onResult);
+    }
+
+    //counts the solutions of all boards, stopping at cap per board, and passes each result to the consumer
+    public void countSolutions(Stream<int[][]> boards, long cap, boolean inInputOrder, Consumer<Result> onResult) {
+        run(boards.iterator(), Graph::new, checkCap(cap), inInputOrder, onResult);
+    }
+
+    public void countSolutionsCells(Stream<int[]> boards, long cap, boolean inInputOrder, Consumer<Result> onResult) {
+        run(boards.iterator(), Graph::new, checkCap(cap), inInputOrder, onResult);
+    }
+
+    //---- helper methods ----
+    private static long checkCap(long cap) {
+        if (cap < 1) {
+            throw new IllegalArgumentException("The solution cap must be at least 1, got " + cap);
+        }
+        return cap;
+    }
+
+    //solves the boards, or counts their solutions up to solutionCap if it is positive
+    private <T> void run(Iterator<T> boardIterator, Function<T, Graph> graphFactory, long solutionCap, boolean inInputOrder, Consumer<Result> onResult) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        CompletionService<Result> completionService = new ExecutorCompletionService<>(pool);
+        Map<Integer, Result> pendingResults = new HashMap<>(); //completed results waiting for earlier boards (in-order delivery only)
+        int nextIndexToDeliver = 0;
+        int inFlight = 0;
+
+        numBoards = 0;
+        numSolved = 0;
+        numTimedOut = 0;
+        numRetried = 0;
+        latencyHistogram = new LatencyHistogram();
+        nodesVisitedHistogram = new LatencyHistogram();
+        guessesHistogram = new LatencyHistogram();
+        slowest.clear();
+        long startTime = System.nanoTime();
+
+        try {
+            while (boardIterator.hasNext() || inFlight > 0) {
+                //keeps the window full (results held back for in-order delivery count against it too)
+                while (inFlight + pendingResults.size() < windowSize && boardIterator.hasNext()) {
+                    T board = boardIterator.next();
+                    int index = numBoards++;
+                    completionService.submit(() -> solveBoard(index, () -> graphFactory.apply(board), solutionCap));
+                    inFlight++;
+                }
+
+                //waits for the next completed board
+                Result result = completionService.take().get();
+                inFlight--;
+                if (result.isSolved()) {
+                    numSolved++;
+                }
+                if (result.getStatus() == SolveStatus.TIMEOUT) {
+                    numTimedOut++;
+                }
+                if (result.isRetried()) {
+                    numRetried++;
+                }
+                recordStats(result);
+                if (!inInputOrder) {
+                    onResult.accept(result);
+                    continue;
+                }
+                pendingResults.put(result.getIndex(), result);
+                Result next;
+                while ((next = pendingResults.remove(nextIndexToDeliver)) != null) {
+                    onResult.accept(next);
+                    nextIndexToDeliver++;
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while solving a batch of boards", e);
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("A solver failed while solving a batch of boards", e.getCause());
+        }
+        finally {
+            elapsedNanos = System.nanoTime() - startTime;
+            pool.shutdownNow();
+        }
+    }
+
+    private Result solveBoard(int index, Supplier<Graph> newGraph, long solutionCap) {
+        long startTime = System.nanoTime();
+        Result result = attempt(index, newGraph.get(), solverFactory, timeLimitNanos, solutionCap, startTime, null);
+        if ((result.getStatus() == SolveStatus.TIMEOUT || result.getStatus() == SolveStatus.INCOMPLETE) && fallbackFactory != null) {
+            //a fresh graph, as the first solver may have left values in the old one
+            result = attempt(index, newGraph.get(), fallbackFactory, fallbackTimeLimitNanos, solutionCap, startTime, result.getStats());
+        }
+        return result;
+    }
+
+    //solves (or counts) one board with a solver from the factory, adding the counters of an earlier attempt if there was one
+    private Result attempt(int index, Graph graph, Function<Graph, Solver> factory, long timeLimitNanos, long solutionCap,
+                           long startTime, SolverStats earlierStats) {
+        graph.buildSudokuEdges();
+        Solver solver = factory.apply(graph);
+        if (collectStats) {
+            solver.enableStats();
+        }
+        if (timeLimitNanos != Long.MAX_VALUE) {
+            solver.setTimeLimitNanos(timeLimitNanos);
+        }
+        if (nodeLimit != Long.MAX_VALUE) {
+            solver.setNodeLimit(nodeLimit);
+        }
+        solver.setCancellationToken(cancellationToken);
+
+        long numSolutions = -1;
+        boolean solved;
+        if (solutionCap > 0) {
+            numSolutions = solver.countSolutions(solutionCap);
+            solved = numSolutions > 0;
+        }
+        else {
+            solved = solver.solve();
+        }
+        SolverStats stats = solver.getStats();
+        if (earlierStats != null) {
+            stats.add(earlierStats);
+        }
+        int[] bestPartial = solver.getStatus().isStopped() && solutionCap == 0 ? solver.getBestPartialAssignment() : null;
+        return new Result(index, graph, solved, numSolutions, solver.getStatus(), earlierStats != null, bestPartial,
+                System.nanoTime() - startTime, stats);
+    }
+
+    //aggregates the result of one board (on the calling thread)
+    private void recordStats(Result result) {
+        latencyHistogram.record(result.getSolveNanos());
+        if (collectStats) {
+            nodesVisitedHistogram.record(result.getStats().getNodesVisited());
+            guessesHistogram.record(result.getStats().getGuesses());
+        }
+        slowest.add(result);
+        if (slowest.size() > NUM_SLOWEST) {
+            slowest.poll();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+import java.util.*;
+
+public final class BitBoard {
+    /*
+    A compact Sudoku board for the hot loops: the values of the cells in an int array, and the values present in each
+    house (row, column or box) as one bitmask per house (bit v for value v). The candidates of a cell are then the
+    values missing from its three houses, a few ands and ors away, and whole-grid passes (every candidate, every
+    naked and hidden single) run over flat int arrays without touching a Node. A board never holds the same value
+    twice in a house: load reports boards that do, and place refuses values that would.
+    The cell-to-house table is flattened (three house indices per cell) and shared by every board of a box size.
+     */
+    private static final int[][] CELL_HOUSES = new int[SudokuTopology.MAX_BOX_SIZE + 1][];
+
+    //attributes
+    private final SudokuTopology topology;
+    private final int allValues;
+    private final int[] cellHouses; //the row, column and box house of cell c at 3c, 3c + 1 and 3c + 2
+    private final int[] values;
+    private final int[] houseMasks;
+    private int numFilled = 0;
+
+    //constructor
+    public BitBoard(SudokuTopology topology) { //an empty board
+        this.topology = topology;
+        this.allValues = topology.getAllValuesMask();
+        this.cellHouses = cellHouses(topology);
+        this.values = new int[topology.getNumCells()];
+        this.houseMasks = new int[topology.getNumHouses()];
+    }
+
+    //getters
+    public SudokuTopology getTopology() {
+        return topology;
+    }
+
+    public int getValue(int cell) {
+        return values[cell];
+    }
+
+    public int getNumFilled() {
+        return numFilled;
+    }
+
+    //whether every cell is filled: as no house holds a value twice, the board is then a solution
+    public boolean isSolved() {
+        return numFilled == values.length;
+    }
+
+    //the values present in a house (rows first, then columns, then boxes), as a bitmask
+    public int getHouseMask(int house) {
+        return houseMasks[house];
+    }
+
+    //the values none of the cell's houses holds yet (0 for a filled cell)
+    public int getCandidates(int cell) {
+        if (values[cell] != 0) {
+            return 0;
+        }
+        int h = 3 * cell;
+        return allValues & ~(houseMasks[cellHouses[h]] | houseMasks[cellHouses[h + 1]] | houseMasks[cellHouses[h + 2]]);
+    }
+
+    //methods
+    //replaces the board with the given cell values (0 for empty), returning false if a house holds a value twice;
+    //the board is then only filled up to the first repeated value
+    public boolean load(int[] cellValues) {
+        if (cellValues.length != values.length) {
+            throw new IllegalArgumentException("A " + topology.getSize() + "x" + topology.getSize() + " board has "
+                    + values.length + " cells, got " + cellValues.length);
+        }
+        clear();
+        for (int cell = 0; cell < values.length; cell++) {
+            int value = cellValues[cell];
+            if (value != 0 && !place(cell, value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //replaces the board with the values of a graph constructed from a board of the same size
+    public boolean load(Graph graph) {
+        if (graph.getTopology() != topology) {
+            throw new IllegalArgumentException("The graph does not follow the board's " + topology.getSize() + "x" + topology.getSize() + " layout");
+        }
+        clear();
+        for (int cell = 0; cell < values.length; cell++) {
+            int value = graph.getNode(cell).getValue();
+            if (value != 0 && !place(cell, value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //empties every cell
+    public void clear() {
+        Arrays.fill(values, 0);
+        Arrays.fill(houseMasks, 0);
+        numFilled = 0;
+    }
+
+    //puts a value in an empty cell, returning false (and changing nothing) if one of its houses already holds it
+    public boolean place(int cell, int value) {
+        if (value < 1 || value > topology.getSize()) {
+            throw new IllegalArgumentException("Values go from 1 to " + topology.getSize() + ", got " + value);
+        }
+        if (values[cell] != 0) {
+            throw new IllegalStateException("Cell " + cell + " already holds " + values[cell]);
+        }
+        int bit = 1 << value;
+        int h = 3 * cell;
+        if (((houseMasks[cellHouses[h]] | houseMasks[cellHouses[h + 1]] | houseMasks[cellHouses[h + 2]]) & bit) != 0) {
+            return false;
+        }
+        put(cell, bit);
+        return true;
+    }
+
+    //empties a cell
+    public void remove(int cell) {
+        int value = values[cell];
+        if (value == 0) {
+            return;
+        }
+        int h = 3 * cell;
+        houseMasks[cellHouses[h]] &= ~(1 << value);
+        houseMasks[cellHouses[h + 1]] &= ~(1 << value);
+        houseMasks[cellHouses[h + 2]] &= ~(1 << value);
+        values[cell] = 0;
+        numFilled--;
+    }
+
+    //writes the candidates of every cell into the array (0 for filled cells), returning false if an empty cell has none
+    public boolean computeCandidates(int[] candidates) {
+        int dead = 0;
+        for (int cell = 0, h = 0; cell < values.length; cell++, h += 3) {
+            int free = allValues & ~(houseMasks[cellHouses[h]] | houseMasks[cellHouses[h + 1]] | houseMasks[cellHouses[h + 2]]);
+            int candidate = (values[cell] == 0) ? free : 0;
+            candidates[cell] = candidate;
+            dead |= (values[cell] == 0 && candidate == 0) ? 1 : 0;
+        }
+        return dead == 0;
+    }
+
+    //fills in naked singles (cells with one candidate) and hidden singles (values with one cell left in a house)
+    //until there are none left, returning the number of cells filled, or -1 if the board turns out to be unsolvable
+    //(an empty cell without candidates, a value without a cell in a house, or a cell needed by two values)
+    public int propagateSingles() {
+        int filledBefore = numFilled;
+        boolean progress = true;
+        while (progress && numFilled < values.length) {
+            progress = false;
+
+            //naked singles, in one pass over the grid
+            for (int cell = 0; cell < values.length; cell++) {
+                if (values[cell] != 0) {
+                    continue;
+                }
+                int candidates = getCandidates(cell);
+                if (candidates == 0) {
+                    return -1;
+                }
+                if ((candidates & (candidates - 1)) == 0) {
+                    put(cell, candidates);
+                    progress = true;
+                }
+            }
+
+            //hidden singles: the values seen exactly once among the candidates of a house's empty cells
+            for (int house = 0; house < houseMasks.length; house++) {
+                if (houseMasks[house] == allValues) {
+                    continue;
+                }
+                int[] cells = topology.getHouse(house);
+                int seenOnce = 0;
+                int seenTwice = 0;
+                for (int cell : cells) {
+                    int candidates = getCandidates(cell);
+                    seenTwice |= seenOnce & candidates;
+                    seenOnce |= candidates;
+                }
+                if ((seenOnce | houseMasks[house]) != allValues) {
+                    return -1; //some value has no place left in the house
+                }
+                int unique = seenOnce & ~seenTwice;
+                for (int i = 0; unique != 0 && i < cells.length; i++) {
+                    int hidden = getCandidates(cells[i]) & unique;
+                    if (hidden == 0) {
+                        continue;
+                    }
+                    if ((hidden & (hidden - 1)) != 0) {
+                        return -1; //two values can only go in the same cell
+                    }
+                    put(cells[i], hidden);
+                    unique &= ~hidden;
+                    progress = true;
+                }
+            }
+        }
+        return numFilled - filledBefore;
+    }
+
+    //gives the graph's empty cells the values of the board, returning how many were filled
+    public int writeTo(Graph graph) {
+        int written = 0;
+        for (int cell = 0; cell < values.length; cell++) {
+            Node node = graph.getNode(cell);
+            if (values[cell] != 0 && node.getValue() == 0) {
+                node.changeValue(values[cell]);
+                written++;
+            }
+        }
+        return written;
+    }
+
+    //---- helper methods ----
+    private void put(int cell, int bit) {
+        int h = 3 * cell;
+        houseMasks[cellHouses[h]] |= bit;
+        houseMasks[cellHouses[h + 1]] |= bit;
+        houseMasks[cellHouses[h + 2]] |= bit;
+        values[cell] = Integer.numberOfTrailingZeros(bit);
+        numFilled++;
+    }
+
+    private static synchronized int[] cellHouses(SudokuTopology topology) {
+        int boxSize = topology.getBoxSize();
+        if (CELL_HOUSES[boxSize] == null) {
+            int[] table = new int[3 * topology.getNumCells()];
+            for (int cell = 0; cell < topology.getNumCells(); cell++) {
+                System.arraycopy(topology.getHousesOfCell(cell), 0, table, 3 * cell, 3);
+            }
+            CELL_HOUSES[boxSize] = table;
+        }
+        return CELL_HOUSES[boxSize];
+    }
+}
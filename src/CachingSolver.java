@@ -0,0 +1,55 @@
+import java.util.function.*;
+
+public class CachingSolver extends Solver {
+    /*
+    Looks a board up in a SolutionCache by its canonical form before solving it, so a board that is a relabelled,
+    transposed or permuted copy of one solved before costs a canonicalization and a lookup rather than a search.
+    On a miss, the board is solved by a solver from the given factory, and its solution is added to the cache.
+    The canonicalization is charged against the solve's budget, and a board too symmetric to canonicalize within
+    CANONICAL_STEP_LIMIT steps (e.g. a filled, highly regular 16x16 grid) is handed to the solver without the cache.
+    Several CachingSolvers (e.g. one per board of a BatchSolver) can share the same cache.
+     */
+    private static final long CANONICAL_STEP_LIMIT = 1_000_000; //well above the steps of any 9x9 board
+
+    private final SolutionCache cache;
+    private final Function<Graph, Solver> solverFactory;
+    private boolean cacheHit = false;
+
+    public CachingSolver(Graph sudokuGraph, SolutionCache cache, Function<Graph, Solver> solverFactory) {
+        super(sudokuGraph);
+        this.cache = cache;
+        this.solverFactory = solverFactory;
+    }
+
+    //whether the last solve was answered from the cache
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    @Override
+    protected boolean search() {
+        CanonicalForm form = CanonicalForm.of(sudokuGraph, CANONICAL_STEP_LIMIT, this::isOutOfBudget);
+        if (form == null) {
+            cacheHit = false;
+            return !isStopped() && delegateSolve(solverFactory.apply(sudokuGraph)); //unless the budget ran out
+        }
+        int[] solution = cache.get(form);
+        cacheHit = (solution != null);
+        if (cacheHit) {
+            for (int cell = 0; cell < solution.length; cell++) {
+                sudokuGraph.getNode(cell).changeValue(solution[cell]);
+            }
+            return true;
+        }
+
+        boolean solved = delegateSolve(solverFactory.apply(sudokuGraph));
+        if (solved) {
+            solution = new int[sudokuGraph.getNumVertices()];
+            for (int cell = 0; cell < solution.length; cell++) {
+                solution[cell] = sudokuGraph.getNode(cell).getValue();
+            }
+            cache.put(form, solution);
+        }
+        return solved;
+    }
+}
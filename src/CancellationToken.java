@@ -0,0 +1,29 @@
+public final class CancellationToken {
+    /*
+    A flag that stops every solve it is given to (see Solver.setCancellationToken), e.g. to abandon a batch or the
+    losers of a race. Solvers poll it from their search loops, so a cancelled solve returns within a few hundred
+    search nodes, with the status CANCELLED. A token cannot be reset.
+    A child token is cancelled with its parent, but can also be cancelled on its own (e.g. one token per race, under
+    the token of the whole solve).
+     */
+    private final CancellationToken parent; //null for a root token
+    private volatile boolean cancelled = false;
+
+    //constructors
+    public CancellationToken() {
+        this(null);
+    }
+
+    public CancellationToken(CancellationToken parent) {
+        this.parent = parent;
+    }
+
+    //methods
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled || parent != null && parent.isCancelled();
+    }
+}
@@ -0,0 +1,667 @@
+import java.nio.charset.*;
+import java.util.*;
+import java.util.function.*;
+
+public final class CanonicalForm {
+    /*
+    The canonical form of a Sudoku board under the validity-preserving symmetries of the grid: transposition,
+    permutations of the bands (and stacks), permutations of the rows within each band (and columns within each stack),
+    and relabelling of the digits. Two boards have the same canonical form exactly when one can be transformed into
+    the other, and the transform that produced the form is kept, so a solution can be mapped into and out of the
+    canonical layout.
+    The canonical board is the transformed board whose rows, and then columns, are sorted by decreasing clue count as
+    far as the bands and stacks allow, and which is lexicographically smallest among those, read row by row, where
+    digits are relabelled in order of first appearance and an empty cell counts as larger than every digit. The clue
+    counts settle most of the transform up front; the rest is found by a branch-and-bound search that builds the board
+    cell by cell and abandons a transform as soon as its prefix is larger than the best one found so far. Two
+    transforms that both give the best board reveal a symmetry of the board itself, which the search uses to skip the
+    choices it has already tried in another guise. Highly symmetric boards can still take long, so the search can be
+    capped (see of(int[], int, long, BooleanSupplier)).
+     */
+
+    public static final int STOP_CHECK_INTERVAL = 1024; //steps of the search between two calls to its isStopped
+
+    //attributes
+    private final int size;
+    private final int[] cells; //the canonical board: canonical labels row by row, 0 for an empty cell
+    private final boolean transposed;
+    private final int[] rowOrder; //canonical row p is row rowOrder[p] of the (possibly transposed) board
+    private final int[] colOrder;
+    private final int[] labelOfValue; //a bijection from the values 1..size to the canonical labels 1..size
+    private final int[] valueOfLabel;
+    private String key;
+
+    //constructor
+    private CanonicalForm(int size, int[] cells, boolean transposed, int[] rowOrder, int[] colOrder, int[] labelOfValue) {
+        this.size = size;
+        this.cells = cells;
+        this.transposed = transposed;
+        this.rowOrder = rowOrder;
+        this.colOrder = colOrder;
+        this.labelOfValue = labelOfValue;
+        this.valueOfLabel = new int[size + 1];
+        for (int value = 1; value <= size; value++) {
+            valueOfLabel[labelOfValue[value]] = value;
+        }
+    }
+
+    //computes the canonical form of the values currently held by a graph built from a Sudoku board
+    public static CanonicalForm of(Graph graph) {
+        return of(graph, Long.MAX_VALUE, null);
+    }
+
+    //the same, under the same cap as of(int[], int, long, BooleanSupplier), returning null if the search was given up
+    public static CanonicalForm of(Graph graph, long maxSteps, BooleanSupplier isStopped) {
+        SudokuTopology topology = graph.getTopology();
+        if (topology == null) {
+            throw new IllegalArgumentException("Canonical forms exist only for graphs constructed from a Sudoku board");
+        }
+        int[] values = new int[topology.getNumCells()];
+        for (int cell = 0; cell < values.length; cell++) {
+            values[cell] = graph.getNode(cell).getValue();
+        }
+        return of(values, topology.getBoxSize(), maxSteps, isStopped);
+    }
+
+    //computes the canonical form of a board given as its cell values row by row (0 for an empty cell)
+    public static CanonicalForm of(int[] values, int boxSize) {
+        return of(values, boxSize, Long.MAX_VALUE, null);
+    }
+
+    //the same, but gives up and returns null once the search has taken maxSteps steps (a step is a row, stack or
+    //column tried) or once isStopped (if not null), called every STOP_CHECK_INTERVAL steps, returns true (e.g. a
+    //solver's isOutOfBudget)
+    public static CanonicalForm of(int[] values, int boxSize, long maxSteps, BooleanSupplier isStopped) {
+        Search search = new Search(values, boxSize, maxSteps, isStopped);
+        int orientation = Arrays.compare(search.profile(false), search.profile(true));
+        if (orientation <= 0) {
+            search.run(false);
+        }
+        if (orientation >= 0 && !search.abandoned) {
+            search.run(true);
+        }
+        return search.abandoned ? null : search.toCanonicalForm();
+    }
+
+    //getters
+    //a compact string identifying the canonical board, suitable as a map key
+    public String getKey() {
+        if (key == null) {
+            byte[] bytes = new byte[cells.length];
+            for (int cell = 0; cell < cells.length; cell++) {
+                bytes[cell] = (byte) cells[cell];
+            }
+            key = new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+        return key;
+    }
+
+    public int[] getCells() {
+        return cells.clone();
+    }
+
+    //methods
+    //maps a solution of the original board (cell values row by row) into the canonical layout and labels
+    public int[] toCanonical(int[] solution) {
+        int[] canonical = new int[cells.length];
+        for (int p = 0; p < size; p++) {
+            for (int q = 0; q < size; q++) {
+                canonical[p * size + q] = labelOfValue[solution[originalCell(p, q)]];
+            }
+        }
+        return canonical;
+    }
+
+    //maps a solution of the canonical board back to the layout and values of the original board
+    public int[] fromCanonical(int[] canonicalSolution) {
+        int[] solution = new int[cells.length];
+        for (int p = 0; p < size; p++) {
+            for (int q = 0; q < size; q++) {
+                solution[originalCell(p, q)] = valueOfLabel[canonicalSolution[p * size + q]];
+            }
+        }
+        return solution;
+    }
+
+    //---- helper methods ----
+    //the cell of the original board that canonical cell (p, q) comes from
+    private int originalCell(int p, int q) {
+        int row = rowOrder[p];
+        int col = colOrder[q];
+        return transposed ? col * size + row : row * size + col;
+    }
+
+    //the branch-and-bound search for the smallest transformed board
+    private static final class Search {
+        /*
+        Only rows and stacks whose clue counts match the smallest profile are tried, and columns are first ordered by
+        clue count. Rows are chosen one at a time, but columns are not: they are kept as an ordered partition (initially
+        one part per stack, in the chosen stack order) that each emitted row refines, sorting the columns of a part by
+        their key in that row. Only the order in which digits seen for the first time are labelled is branched on, so
+        columns that the rows seen so far cannot tell apart never multiply the search. Identical rows of a band, and
+        identical bands or stacks, are interchangeable and only the first of them is tried.
+        Whenever a complete transform gives the best board again, the two transforms differ by an automorphism of the
+        board: a permutation of its rows and columns (and digits) that leaves it unchanged. At every choice, the
+        automorphisms that fix all the rows, stacks and columns chosen so far map the subtree of a candidate onto the
+        subtree of its image, with the same boards, so a candidate is skipped if one of its images has been tried
+        before it.
+         */
+        private static final int ROW = 0; //the kinds of choices on the current path
+        private static final int STACK = 1;
+        private static final int COLUMN = 2;
+        private static final int MAX_AUTOMORPHISMS = 64; //more rarely prune more, but make every choice slower
+
+        private final int boxSize;
+        private final int size;
+        private final int emptyKey; //larger than every label
+        private final int[] original;
+        private int[] grid; //the original board, or its transpose
+        private final int[] rowTwin; //the first row of the same band equal to each row
+        private final int[] bandTwin; //the first band equal to each band
+        private final int[] stackTwin; //the first stack equal to each stack
+        private final int[] rowKey; //size minus the clue count of each row, so fuller rows come first
+        private final int[] colKey;
+        private final int[][] bandProfile; //the row keys of each band, sorted
+        private final int[][] stackProfile;
+        private final int[] targetRowKeys; //the row keys of the canonical board, in order
+        private final int[] targetColKeys;
+
+        //the best board so far, and the transform that produced it
+        private final int[] best;
+        private int bestLength = 0; //only the first bestLength cells of best have been emitted
+        private boolean bestTransposed;
+        private final int[] bestRowOrder;
+        private final int[] bestColOrder;
+        private final int[] bestLabelOfValue;
+
+        //the transform being built
+        private boolean transposed;
+        private final int[] rowOrder;
+        private final boolean[] rowUsed;
+        private final boolean[] bandUsed;
+        private final int[] stackOrder;
+        private final boolean[] stackUsed;
+        private final int[][] columns; //columns[p]: the column order before row p is emitted
+        private final boolean[][] partStarts; //partStarts[p][q]: whether a part of columns[p] starts at position q
+        private final int[] labelOfValue;
+        private final int[] labelledValues; //the values in the order they received their labels
+        private int numLabels = 0;
+
+        //the symmetries found, and the choices they have to fix to apply to the current node
+        private final List<int[][]> automorphisms = new ArrayList<>(); //{row permutation, column permutation}
+        private boolean bestIsComplete = false; //whether a complete transform has given the best board since it last improved
+        private final int[] choiceKinds;
+        private final int[] choices; //the rows, stacks and columns chosen on the path to the current node
+        private int numChoices = 0;
+        private final int[][][] activeAutomorphisms = new int[MAX_AUTOMORPHISMS][][]; //scratch space for those that apply
+        private final int[] orbit; //scratch space for the images of a candidate
+        private final boolean[] inOrbit;
+
+        //the cap on the search
+        private final long maxSteps;
+        private final BooleanSupplier isStopped; //null for none
+        private long numSteps = 0;
+        private boolean abandoned = false;
+
+        private Search(int[] values, int boxSize, long maxSteps, BooleanSupplier isStopped) {
+            this.boxSize = boxSize;
+            this.size = boxSize * boxSize;
+            this.emptyKey = size + 1;
+            this.original = values;
+            this.rowTwin = new int[size];
+            this.bandTwin = new int[boxSize];
+            this.stackTwin = new int[boxSize];
+            this.rowKey = new int[size];
+            this.colKey = new int[size];
+            this.bandProfile = new int[boxSize][];
+            this.stackProfile = new int[boxSize][];
+            this.targetRowKeys = new int[size];
+            this.targetColKeys = new int[size];
+            this.best = new int[size * size];
+            this.bestRowOrder = new int[size];
+            this.bestColOrder = new int[size];
+            this.bestLabelOfValue = new int[size + 1];
+            this.rowOrder = new int[size];
+            this.rowUsed = new boolean[size];
+            this.bandUsed = new boolean[boxSize];
+            this.stackOrder = new int[boxSize];
+            this.stackUsed = new boolean[boxSize];
+            this.columns = new int[size + 1][size];
+            this.partStarts = new boolean[size + 1][size];
+            this.labelOfValue = new int[size + 1];
+            this.labelledValues = new int[size];
+            this.choiceKinds = new int[2 * size + boxSize];
+            this.choices = new int[2 * size + boxSize];
+            this.orbit = new int[size];
+            this.inOrbit = new boolean[size];
+            this.maxSteps = maxSteps;
+            this.isStopped = isStopped;
+        }
+
+        //the row keys and then the column keys of the best board for one orientation, compared to choose the orientation
+        private int[] profile(boolean transpose) {
+            orient(transpose);
+            int[] profile = new int[2 * size];
+            System.arraycopy(targetRowKeys, 0, profile, 0, size);
+            System.arraycopy(targetColKeys, 0, profile, size, size);
+            return profile;
+        }
+
+        private void run(boolean transpose) {
+            orient(transpose);
+            findTwins();
+            automorphisms.clear(); //they are symmetries of this orientation's grid
+            chooseRow(0);
+        }
+
+        private void orient(boolean transpose) {
+            transposed = transpose;
+            grid = new int[original.length];
+            Arrays.fill(rowKey, size);
+            Arrays.fill(colKey, size);
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    int value = transpose ? original[col * size + row] : original[row * size + col];
+                    grid[row * size + col] = value;
+                    if (value != 0) {
+                        rowKey[row]--;
+                        colKey[col]--;
+                    }
+                }
+            }
+            sortProfiles(rowKey, bandProfile, targetRowKeys);
+            sortProfiles(colKey, stackProfile, targetColKeys);
+        }
+
+        //sorts the keys within each band (or stack), then the bands by their sorted keys
+        private void sortProfiles(int[] keys, int[][] groupProfiles, int[] targetKeys) {
+            for (int group = 0; group < boxSize; group++) {
+                groupProfiles[group] = Arrays.copyOfRange(keys, group * boxSize, (group + 1) * boxSize);
+                Arrays.sort(groupProfiles[group]);
+            }
+            int[][] sorted = groupProfiles.clone();
+            Arrays.sort(sorted, Arrays::compare);
+            for (int group = 0; group < boxSize; group++) {
+                System.arraycopy(sorted[group], 0, targetKeys, group * boxSize, boxSize);
+            }
+        }
+
+        //chooses the row at canonical position p: a row of a new band at the start of a band, or of the current band otherwise
+        private void chooseRow(int p) {
+            if (!step()) {
+                return;
+            }
+            if (p == size) {
+                reachBest();
+                return;
+            }
+            for (int row = 0; row < size; row++) {
+                int band = row / boxSize;
+                if (rowUsed[row] || rowKey[row] != targetRowKeys[p] || !rowUsed[rowTwin[row]] && rowTwin[row] != row) {
+                    continue;
+                }
+                if (p % boxSize == 0) {
+                    if (bandUsed[band] || !bandUsed[bandTwin[band]] && bandTwin[band] != band
+                            || !Arrays.equals(bandProfile[band], 0, boxSize, targetRowKeys, p, p + boxSize)) {
+                        continue;
+                    }
+                }
+                else if (band != rowOrder[p - 1] / boxSize) {
+                    continue;
+                }
+                if (!automorphisms.isEmpty() && hasEarlierImage(ROW, row)) {
+                    continue;
+                }
+
+                rowOrder[p] = row;
+                rowUsed[row] = true;
+                if (p % boxSize == 0) {
+                    bandUsed[band] = true;
+                }
+                pushChoice(ROW, row);
+                if (p == 0) {
+                    chooseStack(0);
+                }
+                else {
+                    emitPart(p, 0);
+                }
+                numChoices--;
+                rowUsed[row] = false;
+                if (p % boxSize == 0) {
+                    bandUsed[band] = false;
+                }
+                if (abandoned) {
+                    return;
+                }
+            }
+        }
+
+        //chooses the stack order before the first row is emitted; within a stack, columns start out ordered by clue count
+        private void chooseStack(int s) {
+            if (!step()) {
+                return;
+            }
+            if (s == boxSize) {
+                for (int q = 0; q < size; q++) {
+                    int first = q - q % boxSize;
+                    int col = stackOrder[q / boxSize] * boxSize;
+                    int j = q;
+                    while (j > first && colKey[columns[0][j - 1]] > colKey[col + q % boxSize]) {
+                        columns[0][j] = columns[0][j - 1];
+                        j--;
+                    }
+                    columns[0][j] = col + q % boxSize;
+                }
+                for (int q = 0; q < size; q++) {
+                    partStarts[0][q] = (q % boxSize == 0) || colKey[columns[0][q]] != colKey[columns[0][q - 1]];
+                }
+                emitPart(0, 0);
+                return;
+            }
+            int q = s * boxSize;
+            for (int stack = 0; stack < boxSize; stack++) {
+                if (stackUsed[stack] || !stackUsed[stackTwin[stack]] && stackTwin[stack] != stack
+                        || !Arrays.equals(stackProfile[stack], 0, boxSize, targetColKeys, q, q + boxSize)
+                        || !automorphisms.isEmpty() && hasEarlierImage(STACK, stack)) {
+                    continue;
+                }
+                stackOrder[s] = stack;
+                stackUsed[stack] = true;
+                pushChoice(STACK, stack);
+                chooseStack(s + 1);
+                numChoices--;
+                stackUsed[stack] = false;
+                if (abandoned) {
+                    return;
+                }
+            }
+        }
+
+        //emits row p over the part of the column order starting at position q, then the rest of the row and the rows after it
+        private void emitPart(int p, int q) {
+            if (q == size) {
+                chooseRow(p + 1);
+                return;
+            }
+            int[] from = columns[p];
+            int[] to = columns[p + 1];
+            int end = q + 1;
+            while (end < size && !partStarts[p][end]) {
+                end++;
+            }
+
+            //orders the part: labelled values by label, then values seen for the first time, then empty cells
+            int rowStart = rowOrder[p] * size;
+            int numLabelled = 0;
+            int numNew = 0;
+            int numEmpty = 0;
+            for (int i = q; i < end; i++) {
+                int value = grid[rowStart + from[i]];
+                if (value == 0) {
+                    to[end - ++numEmpty] = from[i];
+                }
+                else if (labelOfValue[value] == 0) {
+                    numNew++;
+                }
+                else {
+                    int j = q + numLabelled++;
+                    while (j > q && labelOfValue[grid[rowStart + to[j - 1]]] > labelOfValue[value]) {
+                        to[j] = to[j - 1];
+                        j--;
+                    }
+                    to[j] = from[i];
+                }
+            }
+            int newStart = q + numLabelled;
+            for (int i = q, k = newStart; i < end; i++) {
+                int value = grid[rowStart + from[i]];
+                if (value != 0 && labelOfValue[value] == 0) {
+                    to[k++] = from[i];
+                }
+            }
+
+            for (int i = q; i < newStart; i++) {
+                int key = labelOfValue[grid[rowStart + to[i]]];
+                if (!emit(p * size + i, key)) {
+                    return;
+                }
+                partStarts[p + 1][i] = (i == q) || key != labelOfValue[grid[rowStart + to[i - 1]]];
+            }
+            emitNewValues(p, newStart, newStart + numNew, end);
+        }
+
+        //tries every order of the columns holding values seen for the first time, as their order decides the labels
+        private void emitNewValues(int p, int k, int newEnd, int end) {
+            if (!step()) {
+                return;
+            }
+            int[] to = columns[p + 1];
+            if (k == newEnd) {
+                for (int i = newEnd; i < end; i++) {
+                    if (!emit(p * size + i, emptyKey)) {
+                        return;
+                    }
+                    partStarts[p + 1][i] = (i == newEnd);
+                }
+                emitPart(p, end);
+                return;
+            }
+            int rowStart = rowOrder[p] * size;
+            for (int i = k; i < newEnd; i++) {
+                if (!automorphisms.isEmpty() && hasTriedImage(to, k, i)) {
+                    continue;
+                }
+                swap(to, k, i);
+                int labelMark = numLabels;
+                if (emit(p * size + k, label(grid[rowStart + to[k]]))) {
+                    partStarts[p + 1][k] = true;
+                    pushChoice(COLUMN, to[k]);
+                    emitNewValues(p, k + 1, newEnd, end);
+                    numChoices--;
+                }
+                undoLabels(labelMark);
+                swap(to, k, i);
+                if (abandoned) {
+                    return;
+                }
+            }
+        }
+
+        //emits one cell key: prunes if it is larger than the best board's, and makes it the new best if it is smaller
+        private boolean emit(int position, int cellKey) {
+            if (position >= bestLength || cellKey < best[position]) {
+                best[position] = cellKey;
+                bestLength = position + 1; //the rest of the best board is the rest of this one, still to be emitted
+                bestIsComplete = false;
+                return true;
+            }
+            return cellKey == best[position];
+        }
+
+        //gives a value seen for the first time the next label
+        private int label(int value) {
+            labelledValues[numLabels] = value;
+            labelOfValue[value] = ++numLabels;
+            return numLabels;
+        }
+
+        private void undoLabels(int mark) {
+            while (numLabels > mark) {
+                labelOfValue[labelledValues[--numLabels]] = 0;
+            }
+        }
+
+        private static void swap(int[] array, int i, int j) {
+            int temp = array[i];
+            array[i] = array[j];
+            array[j] = temp;
+        }
+
+        //finds the rows of each band, and the bands and stacks, that are equal to an earlier one
+        private void findTwins() {
+            for (int row = 0; row < size; row++) {
+                rowTwin[row] = row;
+                for (int other = row - row % boxSize; other < row; other++) {
+                    if (Arrays.equals(grid, row * size, (row + 1) * size, grid, other * size, (other + 1) * size)) {
+                        rowTwin[row] = other;
+                        break;
+                    }
+                }
+            }
+            for (int group = 0; group < boxSize; group++) {
+                bandTwin[group] = group;
+                stackTwin[group] = group;
+                for (int other = group - 1; other >= 0; other--) {
+                    if (sameLines(group, other, true)) {
+                        bandTwin[group] = other;
+                    }
+                    if (sameLines(group, other, false)) {
+                        stackTwin[group] = other;
+                    }
+                }
+            }
+        }
+
+        //whether two bands (or stacks) hold the same values in the same places
+        private boolean sameLines(int group, int other, boolean bands) {
+            for (int line = 0; line < boxSize; line++) {
+                for (int i = 0; i < size; i++) {
+                    int a = group * boxSize + line;
+                    int b = other * boxSize + line;
+                    if (bands ? grid[a * size + i] != grid[b * size + i] : grid[i * size + a] != grid[i * size + b]) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        //counts a step of the search, returning false once the search has been given up
+        private boolean step() {
+            if (!abandoned && (++numSteps > maxSteps
+                    || isStopped != null && numSteps % STOP_CHECK_INTERVAL == 0 && isStopped.getAsBoolean())) {
+                abandoned = true;
+            }
+            return !abandoned;
+        }
+
+        private void pushChoice(int kind, int choice) {
+            choiceKinds[numChoices] = kind;
+            choices[numChoices++] = choice;
+        }
+
+        //called with a complete transform, which gives the best board: the first one to do so is recorded, and every
+        //later one in the same orientation differs from it by an automorphism
+        private void reachBest() {
+            if (!bestIsComplete) {
+                recordBest();
+                bestIsComplete = true;
+            }
+            else if (bestTransposed == transposed && automorphisms.size() < MAX_AUTOMORPHISMS) {
+                int[] rowMap = new int[size];
+                int[] colMap = new int[size];
+                for (int i = 0; i < size; i++) {
+                    rowMap[bestRowOrder[i]] = rowOrder[i];
+                    colMap[bestColOrder[i]] = columns[size][i];
+                }
+                automorphisms.add(new int[][] {rowMap, colMap});
+            }
+        }
+
+        //computes into inOrbit the images of a candidate row, stack or column under the automorphisms that fix every
+        //choice on the current path, and returns whether one of them precedes it (rows and stacks are tried in
+        //increasing order; for columns, the caller looks for an image among the candidates tried before)
+        private boolean hasEarlierImage(int kind, int candidate) {
+            int numActive = 0;
+            for (int[][] automorphism : automorphisms) {
+                if (fixesPath(automorphism)) {
+                    activeAutomorphisms[numActive++] = automorphism;
+                }
+            }
+            if (numActive == 0) {
+                return false;
+            }
+            Arrays.fill(inOrbit, false);
+            orbit[0] = candidate;
+            inOrbit[candidate] = true;
+            int orbitSize = 1;
+            for (int i = 0; i < orbitSize; i++) {
+                for (int a = 0; a < numActive; a++) {
+                    int image = apply(activeAutomorphisms[a], kind, orbit[i]);
+                    if (!inOrbit[image]) {
+                        inOrbit[image] = true;
+                        orbit[orbitSize++] = image;
+                    }
+                }
+            }
+            if (kind == COLUMN) {
+                return orbitSize > 1;
+            }
+            for (int i = 0; i < candidate; i++) {
+                if (inOrbit[i]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        //whether the column at position i of a part has an image among the columns tried before it, from position k
+        private boolean hasTriedImage(int[] to, int k, int i) {
+            if (!hasEarlierImage(COLUMN, to[i])) {
+                return false;
+            }
+            for (int j = k; j < i; j++) {
+                if (inOrbit[to[j]]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean fixesPath(int[][] automorphism) {
+            for (int i = 0; i < numChoices; i++) {
+                if (apply(automorphism, choiceKinds[i], choices[i]) != choices[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int apply(int[][] automorphism, int kind, int element) {
+            if (kind == ROW) {
+                return automorphism[0][element];
+            }
+            if (kind == STACK) {
+                return automorphism[1][element * boxSize] / boxSize;
+            }
+            return automorphism[1][element];
+        }
+
+        private void recordBest() {
+            bestTransposed = transposed;
+            System.arraycopy(rowOrder, 0, bestRowOrder, 0, size);
+            System.arraycopy(columns[size], 0, bestColOrder, 0, size);
+            System.arraycopy(labelOfValue, 0, bestLabelOfValue, 0, size + 1);
+        }
+
+        private CanonicalForm toCanonicalForm() {
+            int[] cells = new int[best.length];
+            for (int cell = 0; cell < best.length; cell++) {
+                cells[cell] = (best[cell] == emptyKey) ? 0 : best[cell];
+            }
+
+            //values without a clue take the remaining labels in increasing order: any choice gives a valid bijection
+            int[] labels = bestLabelOfValue.clone();
+            int nextLabel = 0;
+            for (int value = 1; value <= size; value++) {
+                nextLabel = Math.max(nextLabel, labels[value]);
+            }
+            for (int value = 1; value <= size; value++) {
+                if (labels[value] == 0) {
+                    labels[value] = ++nextLabel;
+                }
+            }
+            return new CanonicalForm(size, cells, bestTransposed, bestRowOrder, bestColOrder, labels);
+        }
+    }
+}
@@ -0,0 +1,770 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.*;
+
+public class CdclEngine {
+    /*
+    A conflict-driven clause learning SAT solver for formulas in conjunctive normal form, in plain Java.
+    Variables are numbered from 1 and literals are given as in DIMACS (v or -v); internally, literal 2(v - 1) is v
+    and 2(v - 1) + 1 is its negation, so that the negation of a literal is its lowest bit flipped.
+    - Propagation: binary clauses are held as implication lists (when a is false, b must be true), and longer clauses
+      through two watched literals, so a clause is only visited when one of its first two literals becomes false.
+    - Conflicts are analysed back to the first unique implication point. The learned clause is shortened by dropping
+      literals implied by the rest, and the search jumps back to the second highest level in it.
+    - Branching follows VSIDS: variables in recent conflicts have their activity bumped, activities decay
+      geometrically, and the most active unassigned variable is taken from a heap, with its last value (phase saving).
+    - Restarts follow the Luby sequence, in units of RESTART_UNIT conflicts.
+    - Learned clauses are periodically halved, keeping those whose literals span the fewest decision levels (LBD).
+    Clauses are added at the top level, before solve() or between two calls of it. A stop condition (e.g. a time
+    budget) is checked at every decision.
+    Usage: java CdclEngine file.cnf — solves a DIMACS CNF formula and prints the result in the SAT competition format.
+     */
+    private static final int RESTART_UNIT = 100;
+    private static final double VARIABLE_DECAY = 0.95;
+    private static final int FIRST_REDUCE = 2000; //conflicts before the first reduction of the learned clauses
+    private static final int REDUCE_INCREMENT = 300; //each reduction waits this many conflicts longer than the last
+
+    private static final byte TRUE = 1;
+    private static final byte FALSE = -1;
+    private static final byte UNASSIGNED = 0;
+
+    //a clause of three or more literals, the first two watched
+    private static final class Clause {
+        private final int[] lits;
+        private final boolean learned;
+        private int lbd; //the number of distinct decision levels among its literals when it was learned
+        private boolean deleted;
+
+        private Clause(int[] lits, boolean learned) {
+            this.lits = lits;
+            this.learned = learned;
+        }
+    }
+
+    //attributes
+    private final int numVars;
+    private SolverStats stats = new SolverStats(false);
+    private BooleanSupplier stopCondition; //null to search until done
+    private boolean consistent = true; //false once the clauses are known to be unsatisfiable
+    private boolean stopped;
+    private int numClauses = 0;
+
+    //clauses
+    private final int[][] implications; //for each literal, the literals that must be true when it is false
+    private final int[] numImplications;
+    private final Clause[][] watches; //for each literal, the clauses watching it
+    private final int[] numWatches;
+    private final List<Clause> learnedClauses = new ArrayList<>();
+
+    //assignment
+    private final byte[] litValues;
+    private final int[] levels;
+    private final Clause[] reasons; //the clause that implied each variable, if it was not implied by a binary clause
+    private final int[] binaryReasons; //the false literal of the binary clause that implied each variable, or -1
+    private final int[] trail; //assigned literals, in order
+    private int trailSize = 0;
+    private int propagationHead = 0;
+    private int[] levelStarts = new int[64]; //the trail position of each decision
+    private int decisionLevel = 0;
+
+    //branching
+    private final double[] activity;
+    private double activityIncrement = 1;
+    private final boolean[] phases; //the last value of each variable
+    private final int[] heap; //unassigned (and possibly assigned) variables, the most active first
+    private final int[] heapIndices; //the position of each variable in the heap, or -1
+    private int heapSize = 0;
+
+    //conflict analysis scratch space
+    private final boolean[] seen;
+    private final int[] levelStamps; //for counting distinct levels
+    private int levelStamp = 0;
+    private int[] learned;
+    private int learnedSize;
+    private final int[] pair = new int[2]; //a binary clause as a conflict or a reason
+
+    //counters and schedules
+    private long numConflicts = 0;
+    private long numDecisions = 0;
+    private long numPropagations = 0;
+    private long numRestarts = 0;
+    private long nextReduce = FIRST_REDUCE;
+    private int numReductions = 0;
+    private int deepestTrailSize; //the most variables ever assigned without a conflict, kept under a stop condition
+    private byte[] deepestValues;
+
+    //constructor
+    public CdclEngine(int numVars) {
+        if (numVars < 0) {
+            throw new IllegalArgumentException("A formula cannot have " + numVars + " variables");
+        }
+        this.numVars = numVars;
+        int numLits = 2 * numVars;
+        implications = new int[numLits][];
+        numImplications = new int[numLits];
+        watches = new Clause[numLits][];
+        numWatches = new int[numLits];
+        for (int lit = 0; lit < numLits; lit++) {
+            implications[lit] = new int[4];
+            watches[lit] = new Clause[4];
+        }
+        litValues = new byte[numLits];
+        levels = new int[numVars];
+        reasons = new Clause[numVars];
+        binaryReasons = new int[numVars];
+        trail = new int[numVars];
+        activity = new double[numVars];
+        phases = new boolean[numVars];
+        heap = new int[numVars];
+        heapIndices = new int[numVars];
+        seen = new boolean[numVars];
+        levelStamps = new int[numVars + 1];
+        learned = new int[16];
+        for (int var = 0; var < numVars; var++) {
+            heapIndices[var] = -1;
+            heapInsert(var);
+        }
+    }
+
+    //reads a formula in the DIMACS CNF format: "c" comment lines, a "p cnf <variables> <clauses>" line, then the
+    //clauses as lists of literals, each ended by a 0
+    public static CdclEngine readDimacs(Path file) throws IOException {
+        CdclEngine engine = null;
+        List<Integer> clause = new ArrayList<>();
+        long lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String[] tokens = line.trim().split("\\s+");
+                if (tokens[0].isEmpty() || tokens[0].equals("c") || tokens[0].equals("%")) {
+                    continue;
+                }
+                if (tokens[0].equals("p")) {
+                    if (engine != null || tokens.length < 4 || !tokens[1].equals("cnf")) {
+                        throw new IllegalArgumentException("Malformed DIMACS formula on line " + lineNumber + ": unexpected problem line");
+                    }
+                    engine = new CdclEngine(parseNumber(tokens[2], lineNumber));
+                    continue;
+                }
+                if (engine == null) {
+                    throw new IllegalArgumentException("Malformed DIMACS formula on line " + lineNumber + ": clause before the problem line");
+                }
+                for (String token : tokens) {
+                    int lit = parseNumber(token, lineNumber);
+                    if (lit == 0) {
+                        engine.addClause(clause.stream().mapToInt(Integer::intValue).toArray());
+                        clause.clear();
+                    }
+                    else if (Math.abs(lit) > engine.numVars) {
+                        throw new IllegalArgumentException("Malformed DIMACS formula on line " + lineNumber + ": variable out of range");
+                    }
+                    else {
+                        clause.add(lit);
+                    }
+                }
+            }
+        }
+        if (engine == null) {
+            throw new IllegalArgumentException("Malformed DIMACS formula: no problem line");
+        }
+        if (!clause.isEmpty()) {
+            engine.addClause(clause.stream().mapToInt(Integer::intValue).toArray());
+        }
+        return engine;
+    }
+
+    //getters
+    public int getNumVars() {
+        return numVars;
+    }
+
+    //the number of clauses added (not counting those satisfied at the top level, or learned)
+    public int getNumClauses() {
+        return numClauses;
+    }
+
+    public int getNumLearnedClauses() {
+        return learnedClauses.size();
+    }
+
+    public long getNumConflicts() {
+        return numConflicts;
+    }
+
+    public long getNumDecisions() {
+        return numDecisions;
+    }
+
+    public long getNumRestarts() {
+        return numRestarts;
+    }
+
+    //whether the stop condition ended the last solve early
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    //the value of a variable in the model found by the last solve
+    public boolean isTrue(int var) {
+        return litValues[toLit(var)] == TRUE;
+    }
+
+    //the most complete conflict-free assignment reached by the last solve, indexed by variable from 1 (1 for true,
+    //-1 for false, 0 for unassigned), or null if there is no stop condition
+    public int[] getDeepestAssignment() {
+        if (deepestValues == null) {
+            return null;
+        }
+        int[] values = new int[numVars + 1];
+        for (int var = 1; var <= numVars; var++) {
+            values[var] = deepestValues[toLit(var)];
+        }
+        return values;
+    }
+
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    //setters
+    //records decisions (as nodes visited and guesses), conflicts (as backtracks) and propagations in the given counters
+    public void setStats(SolverStats stats) {
+        this.stats = stats;
+    }
+
+    //checked at every decision: the solve ends as soon as it returns true (null to solve until done)
+    public void setStopCondition(BooleanSupplier stopCondition) {
+        this.stopCondition = stopCondition;
+    }
+
+    //methods
+    //adds a clause of DIMACS literals, returning false if the formula has become unsatisfiable at the top level
+    public boolean addClause(int... dimacsLits) {
+        backtrackTo(0);
+        if (!consistent) {
+            return false;
+        }
+        int[] lits = new int[dimacsLits.length];
+        int size = 0;
+        for (int dimacsLit : dimacsLits) {
+            if (dimacsLit == 0 || Math.abs(dimacsLit) > numVars) {
+                throw new IllegalArgumentException("Literal " + dimacsLit + " is not a variable of the formula");
+            }
+            int lit = toLit(dimacsLit);
+            if (litValues[lit] == TRUE) {
+                return true; //already satisfied at the top level
+            }
+            boolean duplicate = false;
+            for (int k = 0; k < size; k++) {
+                if (lits[k] == (lit ^ 1)) {
+                    return true; //a tautology
+                }
+                duplicate |= lits[k] == lit;
+            }
+            if (!duplicate && litValues[lit] != FALSE) {
+                lits[size++] = lit;
+            }
+        }
+        numClauses++;
+        if (size == 0) {
+            consistent = false;
+        }
+        else if (size == 1) {
+            assign(lits[0], null, -1);
+            consistent = propagate() == null;
+        }
+        else if (size == 2) {
+            addBinary(lits[0], lits[1]);
+        }
+        else {
+            attach(new Clause(Arrays.copyOf(lits, size), false));
+        }
+        return consistent;
+    }
+
+    //searches for a model of the clauses, returning false if there is none or if the stop condition ended the search
+    public boolean solve() {
+        stopped = false;
+        deepestTrailSize = -1;
+        deepestValues = null;
+        backtrackTo(0);
+        if (!consistent || propagate() != null) {
+            consistent = false;
+            return false;
+        }
+
+        long restartIndex = 0;
+        long conflictsUntilRestart = RESTART_UNIT * luby(restartIndex);
+        try {
+            while (true) {
+                int[] conflict = propagate();
+                if (conflict != null) {
+                    numConflicts++;
+                    stats.backtrack();
+                    if (decisionLevel == 0) {
+                        consistent = false;
+                        return false;
+                    }
+                    learnFrom(conflict);
+                    conflictsUntilRestart--;
+                    continue;
+                }
+
+                if (conflictsUntilRestart <= 0) {
+                    numRestarts++;
+                    backtrackTo(0);
+                    conflictsUntilRestart = RESTART_UNIT * luby(++restartIndex);
+                }
+                if (numConflicts >= nextReduce) {
+                    reduceLearnedClauses();
+                    nextReduce = numConflicts + FIRST_REDUCE + (long) REDUCE_INCREMENT * ++numReductions;
+                }
+                if (stopCondition != null) {
+                    if (trailSize > deepestTrailSize) {
+                        deepestTrailSize = trailSize;
+                        deepestValues = litValues.clone();
+                    }
+                    if (stopCondition.getAsBoolean()) {
+                        stopped = true;
+                        backtrackTo(0);
+                        return false;
+                    }
+                }
+
+                int var = pickBranchVariable();
+                if (var < 0) {
+                    return true; //every variable is assigned without a conflict: the assignment is a model
+                }
+                numDecisions++;
+                newDecisionLevel();
+                stats.visit(decisionLevel);
+                stats.guess();
+                assign(2 * var + (phases[var] ? 0 : 1), null, -1);
+            }
+        }
+        finally {
+            stats.addPropagations(numPropagations);
+            numPropagations = 0;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java CdclEngine file.cnf");
+            return;
+        }
+        CdclEngine engine = readDimacs(Paths.get(args[0]));
+        engine.setStats(new SolverStats(true));
+        long startTime = System.nanoTime();
+        boolean satisfiable = engine.solve();
+        long elapsedNanos = System.nanoTime() - startTime;
+
+        System.out.println("c " + engine.getNumVars() + " variables, " + engine.getNumClauses() + " clauses, "
+                + engine.getNumConflicts() + " conflicts, " + engine.getNumRestarts() + " restarts, " + elapsedNanos / 1_000_000.0 + " ms");
+        System.out.println(satisfiable ? "s SATISFIABLE" : "s UNSATISFIABLE");
+        if (satisfiable) {
+            StringBuilder model = new StringBuilder("v");
+            for (int var = 1; var <= engine.getNumVars(); var++) {
+                model.append(' ').append(engine.isTrue(var) ? var : -var);
+            }
+            System.out.println(model.append(" 0"));
+        }
+    }
+
+    //---- propagation ----
+    //propagates every assignment on the trail, returning the literals of a falsified clause, or null
+    private int[] propagate() {
+        while (propagationHead < trailSize) {
+            int falseLit = trail[propagationHead++] ^ 1;
+
+            //binary clauses
+            int[] implied = implications[falseLit];
+            for (int k = 0; k < numImplications[falseLit]; k++) {
+                int lit = implied[k];
+                if (litValues[lit] == FALSE) {
+                    pair[0] = lit;
+                    pair[1] = falseLit;
+                    return pair;
+                }
+                if (litValues[lit] == UNASSIGNED) {
+                    assign(lit, null, falseLit);
+                }
+            }
+
+            //longer clauses, which keep their watched literals first
+            Clause[] watching = watches[falseLit];
+            int count = numWatches[falseLit];
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                Clause clause = watching[i];
+                if (clause.deleted) {
+                    continue; //dropped from the list
+                }
+                int[] lits = clause.lits;
+                if (lits[0] == falseLit) {
+                    lits[0] = lits[1];
+                    lits[1] = falseLit;
+                }
+                if (litValues[lits[0]] == TRUE) {
+                    watching[kept++] = clause;
+                    continue;
+                }
+
+                //looks for another literal to watch
+                boolean moved = false;
+                for (int k = 2; k < lits.length; k++) {
+                    if (litValues[lits[k]] != FALSE) {
+                        lits[1] = lits[k];
+                        lits[k] = falseLit;
+                        addWatch(lits[1], clause);
+                        moved = true;
+                        break;
+                    }
+                }
+                if (moved) {
+                    continue;
+                }
+
+                //the clause is unit or falsified
+                watching[kept++] = clause;
+                if (litValues[lits[0]] == FALSE) {
+                    for (i++; i < count; i++) {
+                        watching[kept++] = watching[i];
+                    }
+                    numWatches[falseLit] = kept;
+                    propagationHead = trailSize;
+                    return lits;
+                }
+                assign(lits[0], clause, -1);
+            }
+            numWatches[falseLit] = kept;
+        }
+        return null;
+    }
+
+    private void assign(int lit, Clause reason, int binaryReason) {
+        int var = lit >>> 1;
+        litValues[lit] = TRUE;
+        litValues[lit ^ 1] = FALSE;
+        levels[var] = decisionLevel;
+        reasons[var] = reason;
+        binaryReasons[var] = binaryReason;
+        trail[trailSize++] = lit;
+        numPropagations++;
+    }
+
+    private void newDecisionLevel() {
+        if (decisionLevel + 1 >= levelStarts.length) {
+            levelStarts = Arrays.copyOf(levelStarts, 2 * levelStarts.length);
+        }
+        levelStarts[++decisionLevel] = trailSize;
+    }
+
+    //undoes every assignment above the given decision level, saving the values as the variables' phases
+    private void backtrackTo(int level) {
+        if (decisionLevel <= level) {
+            return;
+        }
+        for (int i = trailSize - 1; i >= levelStarts[level + 1]; i--) {
+            int lit = trail[i];
+            int var = lit >>> 1;
+            phases[var] = (lit & 1) == 0;
+            litValues[lit] = UNASSIGNED;
+            litValues[lit ^ 1] = UNASSIGNED;
+            reasons[var] = null;
+            if (heapIndices[var] < 0) {
+                heapInsert(var);
+            }
+        }
+        trailSize = levelStarts[level + 1];
+        propagationHead = trailSize;
+        decisionLevel = level;
+    }
+
+    //---- conflict analysis ----
+    //learns a clause from the conflict, jumps back and asserts the clause's first literal
+    private void learnFrom(int[] conflict) {
+        learnedSize = 1; //learned[0] is filled in with the first unique implication point
+        int pathCount = 0;
+        int lit = -1;
+        int[] reasonLits = conflict;
+        int start = 0;
+        int index = trailSize - 1;
+        do {
+            for (int k = start; k < reasonLits.length; k++) {
+                int q = reasonLits[k];
+                int var = q >>> 1;
+                if (!seen[var] && levels[var] > 0) {
+                    bumpActivity(var);
+                    seen[var] = true;
+                    if (levels[var] >= decisionLevel) {
+                        pathCount++;
+                    }
+                    else {
+                        addLearned(q);
+                    }
+                }
+            }
+
+            //the most recent assignment of the current level in the clause is resolved next
+            while (!seen[trail[index] >>> 1]) {
+                index--;
+            }
+            lit = trail[index--];
+            int var = lit >>> 1;
+            seen[var] = false;
+            pathCount--;
+            if (reasons[var] != null) {
+                reasonLits = reasons[var].lits; //lits[0] is the implied literal
+                start = 1;
+            }
+            else {
+                pair[0] = lit;
+                pair[1] = binaryReasons[var];
+                reasonLits = pair;
+                start = 1;
+            }
+        } while (pathCount > 0);
+        learned[0] = lit ^ 1;
+
+        //drops the literals implied by the others (swapping them past the end, so they are still there to have their
+        //marks cleared), then clears the marks
+        int size = 1;
+        for (int k = 1; k < learnedSize; k++) {
+            if (!isImpliedByLearned(learned[k])) {
+                int swap = learned[size];
+                learned[size++] = learned[k];
+                learned[k] = swap;
+            }
+        }
+        for (int k = 0; k < learnedSize; k++) {
+            seen[learned[k] >>> 1] = false;
+        }
+        learnedSize = size;
+
+        //jumps back to the second highest level, which goes second to be watched
+        int backjumpLevel = 0;
+        for (int k = 1; k < learnedSize; k++) {
+            if (levels[learned[k] >>> 1] > backjumpLevel) {
+                backjumpLevel = levels[learned[k] >>> 1];
+                int swap = learned[1];
+                learned[1] = learned[k];
+                learned[k] = swap;
+            }
+        }
+        backtrackTo(backjumpLevel);
+
+        if (learnedSize == 1) {
+            assign(learned[0], null, -1);
+        }
+        else if (learnedSize == 2) {
+            addBinary(learned[0], learned[1]);
+            assign(learned[0], null, learned[1]);
+        }
+        else {
+            Clause clause = new Clause(Arrays.copyOf(learned, learnedSize), true);
+            clause.lbd = countLevels(clause.lits);
+            attach(clause);
+            learnedClauses.add(clause);
+            assign(learned[0], clause, -1);
+        }
+        activityIncrement /= VARIABLE_DECAY;
+    }
+
+    private void addLearned(int lit) {
+        if (learnedSize == learned.length) {
+            learned = Arrays.copyOf(learned, 2 * learned.length);
+        }
+        learned[learnedSize++] = lit;
+    }
+
+    //whether every other literal of the reason for a learned literal is already in the clause (or fixed at the top level)
+    private boolean isImpliedByLearned(int lit) {
+        int var = lit >>> 1;
+        if (reasons[var] != null) {
+            int[] lits = reasons[var].lits;
+            for (int k = 1; k < lits.length; k++) {
+                int other = lits[k] >>> 1;
+                if (!seen[other] && levels[other] > 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (binaryReasons[var] >= 0) {
+            int other = binaryReasons[var] >>> 1;
+            return seen[other] || levels[other] == 0;
+        }
+        return false; //a decision
+    }
+
+    private int countLevels(int[] lits) {
+        levelStamp++;
+        int count = 0;
+        for (int lit : lits) {
+            int level = levels[lit >>> 1];
+            if (levelStamps[level] != levelStamp) {
+                levelStamps[level] = levelStamp;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    //deletes half of the learned clauses, those spanning the most levels first, keeping any that is a current reason
+    private void reduceLearnedClauses() {
+        learnedClauses.sort((a, b) -> (a.lbd != b.lbd) ? Integer.compare(b.lbd, a.lbd) : Integer.compare(b.lits.length, a.lits.length));
+        int toDelete = learnedClauses.size() / 2;
+        List<Clause> kept = new ArrayList<>(learnedClauses.size() - toDelete);
+        for (Clause clause : learnedClauses) {
+            int var = clause.lits[0] >>> 1;
+            boolean locked = reasons[var] == clause && litValues[clause.lits[0]] == TRUE;
+            if (toDelete > 0 && !locked && clause.lbd > 2) {
+                clause.deleted = true; //removed from the watch lists as propagation comes across it
+                toDelete--;
+            }
+            else {
+                kept.add(clause);
+            }
+        }
+        learnedClauses.clear();
+        learnedClauses.addAll(kept);
+    }
+
+    //---- branching ----
+    private int pickBranchVariable() {
+        while (heapSize > 0) {
+            int var = heapRemoveMax();
+            if (litValues[2 * var] == UNASSIGNED) {
+                return var;
+            }
+        }
+        return -1;
+    }
+
+    private void bumpActivity(int var) {
+        activity[var] += activityIncrement;
+        if (activity[var] > 1e100) {
+            //rescales every activity, keeping their order
+            for (int v = 0; v < numVars; v++) {
+                activity[v] *= 1e-100;
+            }
+            activityIncrement *= 1e-100;
+        }
+        if (heapIndices[var] >= 0) {
+            heapUp(heapIndices[var]);
+        }
+    }
+
+    //the Luby sequence 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8, ... from index 0
+    private static long luby(long index) {
+        long size = 1;
+        int exponent = 0;
+        while (size < index + 1) {
+            size = 2 * size + 1;
+            exponent++;
+        }
+        while (size - 1 != index) {
+            size = (size - 1) >> 1;
+            exponent--;
+            index %= size;
+        }
+        return 1L << exponent;
+    }
+
+    //---- variable heap, ordered by activity ----
+    private void heapInsert(int var) {
+        heapIndices[var] = heapSize;
+        heap[heapSize++] = var;
+        heapUp(heapSize - 1);
+    }
+
+    private int heapRemoveMax() {
+        int top = heap[0];
+        heapIndices[top] = -1;
+        int last = heap[--heapSize];
+        if (heapSize > 0) {
+            heap[0] = last;
+            heapIndices[last] = 0;
+            heapDown(0);
+        }
+        return top;
+    }
+
+    private void heapUp(int position) {
+        int var = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >> 1;
+            if (activity[heap[parent]] >= activity[var]) {
+                break;
+            }
+            heap[position] = heap[parent];
+            heapIndices[heap[position]] = position;
+            position = parent;
+        }
+        heap[position] = var;
+        heapIndices[var] = position;
+    }
+
+    private void heapDown(int position) {
+        int var = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && activity[heap[child + 1]] > activity[heap[child]]) {
+                child++;
+            }
+            if (activity[heap[child]] <= activity[var]) {
+                break;
+            }
+            heap[position] = heap[child];
+            heapIndices[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = var;
+        heapIndices[var] = position;
+    }
+
+    //---- helper methods ----
+    private static int toLit(int dimacsLit) {
+        return (dimacsLit > 0) ? 2 * (dimacsLit - 1) : 2 * (-dimacsLit - 1) + 1;
+    }
+
+    private void addBinary(int a, int b) {
+        addImplication(a, b);
+        addImplication(b, a);
+    }
+
+    //when lit is false, implied must be true
+    private void addImplication(int lit, int implied) {
+        if (numImplications[lit] == implications[lit].length) {
+            implications[lit] = Arrays.copyOf(implications[lit], 2 * implications[lit].length);
+        }
+        implications[lit][numImplications[lit]++] = implied;
+    }
+
+    private void attach(Clause clause) {
+        addWatch(clause.lits[0], clause);
+        addWatch(clause.lits[1], clause);
+    }
+
+    private void addWatch(int lit, Clause clause) {
+        if (numWatches[lit] == watches[lit].length) {
+            watches[lit] = Arrays.copyOf(watches[lit], 2 * watches[lit].length);
+        }
+        watches[lit][numWatches[lit]++] = clause;
+    }
+
+    private static int parseNumber(String token, long lineNumber) {
+        try {
+            return Integer.parseInt(token);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed DIMACS formula on line " + lineNumber + ": \"" + token + "\" is not a number", e);
+        }
+    }
+}
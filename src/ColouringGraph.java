@@ -0,0 +1,161 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+public class ColouringGraph {
+    /*
+    An undirected graph for general colouring problems (register allocation, scheduling, DIMACS benchmarks, or a
+    Sudoku board viewed as a graph), with vertices numbered 0 through numVertices - 1.
+    Each vertex's neighbours are held as a row of a bitset adjacency matrix, a long per 64 vertices, so testing an
+    edge is a single bit lookup and set operations on neighbourhoods (e.g. the uncoloured neighbours of a vertex, or
+    the common neighbours of a clique) take one AND per word.
+     */
+
+    //attributes
+    private final int numVertices;
+    private final int numWords; //longs per adjacency row
+    private final long[][] adjacency;
+    private final int[] degrees;
+    private int numEdges = 0;
+
+    //constructor
+    public ColouringGraph(int numVertices) {
+        if (numVertices < 0) {
+            throw new IllegalArgumentException("A graph cannot have " + numVertices + " vertices");
+        }
+        this.numVertices = numVertices;
+        this.numWords = (numVertices + 63) >>> 6;
+        this.adjacency = new long[numVertices][numWords];
+        this.degrees = new int[numVertices];
+    }
+
+    //the graph of a Graph's nodes and edges, with vertex i for the node of index i
+    public static ColouringGraph fromGraph(Graph graph) {
+        ColouringGraph colouringGraph = new ColouringGraph(graph.getNumVertices());
+        for (int i = 0; i < graph.getNumVertices(); i++) {
+            for (int k = 0; k < graph.getDegree(i); k++) {
+                colouringGraph.addEdge(i, graph.getNeighbourIndex(i, k));
+            }
+        }
+        return colouringGraph;
+    }
+
+    //reads a graph in the DIMACS edge format: "c" comment lines, a "p edge <vertices> <edges>" line, then one
+    //"e <u> <v>" line per edge, with vertices numbered from 1
+    public static ColouringGraph readDimacs(Path file) throws IOException {
+        ColouringGraph graph = null;
+        long lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String[] tokens = line.trim().split("\\s+");
+                if (tokens[0].isEmpty() || tokens[0].equals("c")) {
+                    continue;
+                }
+                if (tokens[0].equals("p")) {
+                    if (graph != null || tokens.length < 3) {
+                        throw new IllegalArgumentException("Malformed DIMACS graph on line " + lineNumber + ": unexpected problem line");
+                    }
+                    graph = new ColouringGraph(parseNumber(tokens[2], lineNumber));
+                }
+                else if (tokens[0].equals("e")) {
+                    if (graph == null || tokens.length < 3) {
+                        throw new IllegalArgumentException("Malformed DIMACS graph on line " + lineNumber + ": edge before the problem line, or missing a vertex");
+                    }
+                    int u = parseNumber(tokens[1], lineNumber) - 1;
+                    int v = parseNumber(tokens[2], lineNumber) - 1;
+                    if (u < 0 || v < 0 || u >= graph.numVertices || v >= graph.numVertices) {
+                        throw new IllegalArgumentException("Malformed DIMACS graph on line " + lineNumber + ": vertex out of range");
+                    }
+                    graph.addEdge(u, v);
+                }
+            }
+        }
+        if (graph == null) {
+            throw new IllegalArgumentException("Malformed DIMACS graph: no problem line");
+        }
+        return graph;
+    }
+
+    //getters
+    public int getNumVertices() {
+        return numVertices;
+    }
+
+    public int getNumEdges() {
+        return numEdges;
+    }
+
+    public int getDegree(int vertex) {
+        return degrees[vertex];
+    }
+
+    //the number of longs in an adjacency row
+    public int getNumWords() {
+        return numWords;
+    }
+
+    //the neighbours of a vertex as a bitset (bit u of word u / 64); the array must not be modified
+    public long[] getAdjacencyRow(int vertex) {
+        return adjacency[vertex];
+    }
+
+    //the neighbours of a vertex, in increasing order
+    public int[] getNeighbours(int vertex) {
+        int[] neighbours = new int[degrees[vertex]];
+        long[] row = adjacency[vertex];
+        int count = 0;
+        for (int word = 0; word < numWords; word++) {
+            for (long bits = row[word]; bits != 0; bits &= bits - 1) {
+                neighbours[count++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return neighbours;
+    }
+
+    public boolean isAdjacent(int u, int v) {
+        return (adjacency[u][v >>> 6] & (1L << v)) != 0;
+    }
+
+    //methods
+    //connects two vertices (self-loops and repeated edges are ignored)
+    public void addEdge(int u, int v) {
+        if (u == v || isAdjacent(u, v)) {
+            return;
+        }
+        adjacency[u][v >>> 6] |= 1L << v;
+        adjacency[v][u >>> 6] |= 1L << u;
+        degrees[u]++;
+        degrees[v]++;
+        numEdges++;
+    }
+
+    //checks that every vertex has a colour (from 1) that none of its neighbours share
+    public boolean isProperColouring(int[] colours) {
+        if (colours.length != numVertices) {
+            return false;
+        }
+        for (int u = 0; u < numVertices; u++) {
+            if (colours[u] < 1) {
+                return false;
+            }
+            for (int v : getNeighbours(u)) {
+                if (colours[v] == colours[u]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    //---- helper methods ----
+    private static int parseNumber(String token, long lineNumber) {
+        try {
+            return Integer.parseInt(token);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed DIMACS graph on line " + lineNumber + ": \"" + token + "\" is not a number", e);
+        }
+    }
+}
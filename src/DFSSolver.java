@@ -2,12 +2,38 @@ import java.util.*;
 
 public class DFSSolver extends Solver{
     //solves the Sudoku puzzle using depth-first search
+    private NogoodTable nogoods; //refuted states, probed at every search node (null for none)
+    private long numNodes; //search nodes visited, to measure the subtrees that fail
+
     public DFSSolver(Graph sudokuGraph) {
         super(sudokuGraph);
     }
 
+    //skips the states the table already holds as refuted, and adds the ones this search refutes (see NogoodTable)
+    public void setNogoodTable(NogoodTable nogoods) {
+        this.nogoods = nogoods;
+    }
+
     @Override
-    public boolean solve() {
+    protected boolean search() {
+        return solveHelper(0);
+    }
+
+    //recursive helper function to solve the Sudoku puzzle
+    private boolean solveHelper(int depth) {
+        stats.visit(depth);
+        if (isOutOfBudget()) {
+            return false; //unwinds the search
+        }
+        if (isBetterPartial(depth)) {
+            recordPartial(depth, currentValues());
+        }
+        long hash = sudokuGraph.getZobristHash();
+        if (nogoods != null && nogoods.contains(hash)) {
+            return false; //the same values have been refuted before
+        }
+        long firstNode = numNodes++;
+
         //finds the next unassigned node
         Optional<Node> unassignedNodeOpt = findUnassignedNode(sudokuGraph);
         if (unassignedNodeOpt.isEmpty()) {
@@ -15,20 +41,28 @@ public class DFSSolver extends Solver{
         }
         Node currentNode = unassignedNodeOpt.get();
 
-        //assigns a valid value from 1 to 9
-        for (int guessVal = 1; guessVal <= 9; guessVal++) {
+        //assigns a valid value from 1 to 9 (or to the size of a larger board)
+        for (int guessVal = 1; guessVal <= sudokuGraph.getMaxValue(); guessVal++) {
             if (currentNode.isValidAssignment(guessVal)) {
                 currentNode.changeValue(guessVal);
+                stats.guess();
 
                 //recursive step:
-                if (solve()) {
+                if (solveHelper(depth + 1)) {
                     return true; //puzzle is solved (true indicates a solution is found)
                 }
 
                 //backtracking: unassigns the value if there is a conflict
                 currentNode.changeValue(0);
+                stats.backtrack();
+                if (isStopped()) {
+                    return false;
+                }
             }
         }
+        if (nogoods != null && numNodes - firstNode > 1) {
+            nogoods.add(hash, numNodes - firstNode); //the whole subtree has failed
+        }
         return false; //false indicates a solution is not possible
     }
 }
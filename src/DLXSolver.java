@@ -0,0 +1,251 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+public class DLXSolver extends Solver{
+    /*
+    Solves the Sudoku puzzle as an exact cover problem with Knuth's Algorithm X, implemented with Dancing Links.
+    Every (cell, value) pair is a row of the matrix covering four constraint columns: the cell is filled, and the value
+    appears once in the cell's row, column and box (324 columns and 729 rows for a 9x9 board).
+    The links are held in preallocated int arrays rather than objects: index 0 is the root, the column headers follow,
+    and then the four nodes of every row. The matrix of a grid layout is the same for every puzzle, so it is built once
+    per topology and copied at the start of each solve.
+    Counting solutions runs the same search without stopping at the first exact cover, as the dancing links make
+    exhausting the tree cheap. A count stopped by the budget returns the solutions found so far.
+     */
+    private static final Map<SudokuTopology, Matrix> MATRICES = new ConcurrentHashMap<>();
+
+    //attributes
+    private int[] left;
+    private int[] right;
+    private int[] up;
+    private int[] down;
+    private int[] column; //the column header each node belongs to
+    private int[] columnSize; //the number of rows remaining in each column, indexed by header
+    private int firstRowNode;
+    private int[] solutionNodes; //the row node chosen at each depth of the search
+    private int solutionDepth;
+    private long solutionCap;
+    private long numSolutions;
+
+    public DLXSolver(Graph sudokuGraph) {
+        super(sudokuGraph);
+    }
+
+    @Override
+    protected boolean search() {
+        if (!searchFromClues(1)) {
+            return false;
+        }
+
+        //fills the graph with the chosen rows
+        int size = sudokuGraph.getTopology().getSize();
+        for (int k = 0; k < solutionDepth; k++) {
+            int row = (solutionNodes[k] - firstRowNode) / 4;
+            sudokuGraph.getNode(row / size).changeValue(row % size + 1);
+        }
+        return true;
+    }
+
+    //counts the completions of the graph's current values (sequentially: each board is cheap to exhaust)
+    @Override
+    public long countSolutions(long cap) {
+        if (cap < 1) {
+            throw new IllegalArgumentException("The solution cap must be at least 1, got " + cap);
+        }
+        startBudget();
+        searchFromClues(cap);
+        finishBudget(numSolutions > 0 && !isStopped());
+        return numSolutions;
+    }
+
+    //copies the matrix, covers the rows of the clues and searches until cap solutions are found; false if there are none
+    private boolean searchFromClues(long cap) {
+        SudokuTopology topology = sudokuGraph.getTopology();
+        if (topology == null) {
+            throw new IllegalStateException("DLXSolver can only solve graphs constructed from a Sudoku board");
+        }
+        Matrix matrix = MATRICES.computeIfAbsent(topology, Matrix::new);
+        left = matrix.left.clone();
+        right = matrix.right.clone();
+        up = matrix.up.clone();
+        down = matrix.down.clone();
+        column = matrix.column;
+        columnSize = matrix.columnSize.clone();
+        firstRowNode = matrix.firstRowNode;
+        solutionCap = cap;
+        numSolutions = 0;
+
+        //selects the rows of all clues before searching
+        int size = topology.getSize();
+        for (Node node : sudokuGraph.getAllNodes()) {
+            if (node.getValue() != 0) {
+                int rowNode = firstRowNode + 4 * (node.getIndex() * size + node.getValue() - 1);
+                for (int k = 0; k < 4; k++) {
+                    int header = column[rowNode + k];
+                    if (right[left[header]] != header) {
+                        return false; //the constraint is already covered by another clue: the clues conflict
+                    }
+                    cover(header);
+                }
+            }
+        }
+
+        solutionNodes = new int[topology.getNumCells()];
+        search(0);
+        return numSolutions > 0;
+    }
+
+    //recursive Algorithm X: chooses the column with the fewest rows, and tries each of its rows in turn;
+    //returns true once solutionCap solutions have been found, leaving the last one in solutionNodes, or once the
+    //budget runs out
+    private boolean search(int depth) {
+        stats.visit(depth);
+        if (isOutOfBudget()) {
+            return true;
+        }
+        if (isBetterPartial(depth)) {
+            recordPartial(depth, partialValues(depth));
+        }
+        if (right[0] == 0) {
+            //every constraint is covered exactly once
+            numSolutions++;
+            solutionDepth = depth;
+            return numSolutions >= solutionCap;
+        }
+
+        int chosenColumn = 0;
+        int minSize = Integer.MAX_VALUE;
+        for (int header = right[0]; header != 0; header = right[header]) {
+            if (columnSize[header] < minSize) {
+                minSize = columnSize[header];
+                chosenColumn = header;
+                if (minSize <= 1) {
+                    break;
+                }
+            }
+        }
+        if (minSize == 0) {
+            return false; //a constraint can no longer be satisfied
+        }
+
+        cover(chosenColumn);
+        for (int rowNode = down[chosenColumn]; rowNode != chosenColumn; rowNode = down[rowNode]) {
+            solutionNodes[depth] = rowNode;
+            if (minSize > 1) {
+                stats.guess();
+            }
+            for (int j = right[rowNode]; j != rowNode; j = right[j]) {
+                cover(column[j]);
+            }
+
+            //recursive step
+            if (search(depth + 1)) {
+                return true;
+            }
+
+            //backtracking: uncovers in the reverse order
+            for (int j = left[rowNode]; j != rowNode; j = left[j]) {
+                uncover(column[j]);
+            }
+            stats.backtrack();
+        }
+        uncover(chosenColumn);
+        return false;
+    }
+
+    //the clues and the values of the rows chosen at the first depths of the search
+    private int[] partialValues(int depth) {
+        int size = sudokuGraph.getTopology().getSize();
+        int[] values = currentValues();
+        for (int k = 0; k < depth; k++) {
+            int row = (solutionNodes[k] - firstRowNode) / 4;
+            values[row / size] = row % size + 1;
+        }
+        return values;
+    }
+
+    //---- dancing links operations ----
+    private void cover(int header) {
+        right[left[header]] = right[header];
+        left[right[header]] = left[header];
+        for (int i = down[header]; i != header; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                up[down[j]] = up[j];
+                down[up[j]] = down[j];
+                columnSize[column[j]]--;
+            }
+        }
+    }
+
+    private void uncover(int header) {
+        for (int i = up[header]; i != header; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                columnSize[column[j]]++;
+                up[down[j]] = j;
+                down[up[j]] = j;
+            }
+        }
+        right[left[header]] = header;
+        left[right[header]] = header;
+    }
+
+    //the unreduced exact cover matrix of a grid layout, shared by all solves on that layout
+    private static final class Matrix {
+        private final int[] left;
+        private final int[] right;
+        private final int[] up;
+        private final int[] down;
+        private final int[] column;
+        private final int[] columnSize;
+        private final int firstRowNode;
+
+        private Matrix(SudokuTopology topology) {
+            int size = topology.getSize();
+            int numCells = topology.getNumCells();
+            int numColumns = 4 * numCells;
+            int numNodes = 1 + numColumns + 4 * numCells * size;
+            left = new int[numNodes];
+            right = new int[numNodes];
+            up = new int[numNodes];
+            down = new int[numNodes];
+            column = new int[numNodes];
+            columnSize = new int[numColumns + 1];
+            firstRowNode = numColumns + 1;
+
+            //links the root and column headers into a circular list
+            for (int header = 0; header <= numColumns; header++) {
+                left[header] = (header == 0) ? numColumns : header - 1;
+                right[header] = (header == numColumns) ? 0 : header + 1;
+                up[header] = header;
+                down[header] = header;
+                column[header] = header;
+            }
+
+            //adds one row of four nodes for every (cell, value) pair
+            int node = firstRowNode;
+            for (int cell = 0; cell < numCells; cell++) {
+                Position posn = topology.getPosition(cell);
+                int box = topology.getHousesOfCell(cell)[2] - 2 * size;
+                for (int value = 0; value < size; value++) {
+                    int[] headers = {
+                            1 + cell,
+                            1 + numCells + posn.getRow() * size + value,
+                            1 + 2 * numCells + posn.getCol() * size + value,
+                            1 + 3 * numCells + box * size + value};
+                    for (int k = 0; k < 4; k++) {
+                        int header = headers[k];
+                        column[node + k] = header;
+                        up[node + k] = up[header];
+                        down[node + k] = header;
+                        down[up[header]] = node + k;
+                        up[header] = node + k;
+                        columnSize[header]++;
+                        left[node + k] = node + (k + 3) % 4;
+                        right[node + k] = node + (k + 1) % 4;
+                    }
+                    node += 4;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,369 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.*;
+
+public class DSaturColouring {
+    /*
+    Colours the vertices of a ColouringGraph with DSATUR (Brélaz's heuristic) and branch and bound. The next vertex
+    coloured is always the one whose neighbours already hold the most distinct colours (its saturation), ties going
+    to the vertex with the most uncoloured neighbours; it then tries each colour its neighbours leave free.
+    findColouring looks for a colouring with at most k colours and stops at the first one. findMinimumColouring
+    starts from the colouring of a greedy DSATUR pass and keeps searching for colourings with fewer colours, until it
+    has either exhausted the tree or reached the size of a clique found beforehand (no colouring can use fewer).
+    Colours are numbered from 1. Vertices can be precoloured (as a Sudoku's clues are), and keep their colour
+    throughout. To break the symmetry between colours, a vertex is never given a colour above the largest colour in
+    use plus one.
+    A stop condition (e.g. a time budget) can end either search early: findColouring then returns null and keeps the
+    deepest partial colouring it reached, and findMinimumColouring returns the best colouring found so far.
+    Usage: java DSaturColouring file.col [k] — finds a k-colouring of a DIMACS graph, or a minimum colouring.
+     */
+
+    //attributes
+    private final ColouringGraph graph;
+    private final int numVertices;
+    private final int[][] neighbours;
+    private final int[] precolours; //0 for a free vertex
+    private SolverStats stats = new SolverStats(false);
+    private BooleanSupplier stopCondition; //null to search until done
+
+    //the state of the current search
+    private int[] colours;
+    private int[] saturation; //the number of distinct colours among each vertex's neighbours
+    private int[] neighbourColourCounts; //how many neighbours of each vertex hold each colour
+    private int stride; //the number of colours tracked per vertex, plus one
+    private long[] uncoloured; //a bitset of the vertices still to be coloured
+    private int numUncoloured;
+    private int maxColour; //the largest colour in use
+    private int[] best; //the best colouring found so far
+    private int bestNumColours; //colourings must use fewer colours than this to be accepted
+    private int lowerBound;
+    private boolean stopAtFirst;
+    private boolean stopped;
+    private int[] deepestPartial; //the partial colouring with the most coloured vertices, kept under a stop condition
+    private int deepestNumColoured;
+
+    //constructor
+    public DSaturColouring(ColouringGraph graph) {
+        this.graph = graph;
+        this.numVertices = graph.getNumVertices();
+        this.neighbours = new int[numVertices][];
+        for (int v = 0; v < numVertices; v++) {
+            neighbours[v] = graph.getNeighbours(v);
+        }
+        this.precolours = new int[numVertices];
+    }
+
+    //getters
+    public ColouringGraph getGraph() {
+        return graph;
+    }
+
+    //the number of colours used by the colouring found by the last search (0 if none was found)
+    public int getNumColours() {
+        return (best == null) ? 0 : bestNumColours;
+    }
+
+    //the size of the largest clique found by the last minimum colouring: no colouring can use fewer colours
+    public int getLowerBound() {
+        return lowerBound;
+    }
+
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    //whether the stop condition ended the last search early
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    //the partial colouring (0 for an uncoloured vertex) that coloured the most vertices in the last search, or null
+    //if there is no stop condition
+    public int[] getDeepestPartialColouring() {
+        return (deepestPartial == null) ? null : deepestPartial.clone();
+    }
+
+    //setters
+    //records nodes visited, guesses and backtracks in the given counters
+    public void setStats(SolverStats stats) {
+        this.stats = stats;
+    }
+
+    //checked at every search node: the search ends as soon as it returns true (null to search until done)
+    public void setStopCondition(BooleanSupplier stopCondition) {
+        this.stopCondition = stopCondition;
+    }
+
+    //fixes the colour of a vertex (0 to free it again)
+    public void precolour(int vertex, int colour) {
+        if (colour < 0) {
+            throw new IllegalArgumentException("Colours start at 1, got " + colour);
+        }
+        precolours[vertex] = colour;
+    }
+
+    //methods
+    //a colouring with colours 1 through at most k (indexed by vertex), or null if there is none
+    public int[] findColouring(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("At least one colour is needed, got " + k);
+        }
+        if (maxPrecolour() > k) {
+            return null;
+        }
+        stopAtFirst = true;
+        stopped = false;
+        lowerBound = 0;
+        best = null;
+        bestNumColours = k + 1;
+        if (startSearch(k)) {
+            search(0);
+        }
+        return (best == null) ? null : best.clone();
+    }
+
+    //a colouring with as few colours as possible, or null if the precoloured vertices already conflict
+    public int[] findMinimumColouring() {
+        //a greedy DSATUR pass gives the first upper bound
+        stopped = false;
+        if (!startSearch(numVertices + maxPrecolour())) {
+            return null;
+        }
+        while (numUncoloured > 0) {
+            int vertex = selectVertex();
+            int colour = 1;
+            while (neighbourColourCounts[vertex * stride + colour] != 0) {
+                colour++;
+            }
+            assign(vertex, colour);
+        }
+        best = colours.clone();
+        bestNumColours = maxColour;
+        lowerBound = Math.max(findLargestClique(), maxPrecolour());
+        if (bestNumColours <= lowerBound) {
+            return best.clone();
+        }
+
+        //branch and bound: only colourings with fewer colours than the best so far are completed
+        stopAtFirst = false;
+        startSearch(bestNumColours);
+        search(0);
+        return best.clone();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java DSaturColouring file.col [k]");
+            return;
+        }
+        ColouringGraph graph = ColouringGraph.readDimacs(Paths.get(args[0]));
+        DSaturColouring dsatur = new DSaturColouring(graph);
+        dsatur.setStats(new SolverStats(true));
+        long startTime = System.nanoTime();
+        int[] colours = (args.length > 1) ? dsatur.findColouring(Integer.parseInt(args[1])) : dsatur.findMinimumColouring();
+        long elapsedNanos = System.nanoTime() - startTime;
+
+        System.out.println(graph.getNumVertices() + " vertices, " + graph.getNumEdges() + " edges");
+        if (colours == null) {
+            System.out.println("No colouring found");
+        }
+        else {
+            System.out.println(dsatur.getNumColours() + " colours" + (args.length > 1 ? "" : " (largest clique found: " + dsatur.getLowerBound() + ")")
+                    + ", valid: " + graph.isProperColouring(colours));
+        }
+        System.out.println("Time: " + elapsedNanos / 1_000_000.0 + " ms, " + dsatur.getStats().toJson());
+    }
+
+    //---- search ----
+    //resets the state for colours 1 through maxColours and colours the precoloured vertices, returning false if two of them conflict
+    private boolean startSearch(int maxColours) {
+        stride = maxColours + 1;
+        colours = new int[numVertices];
+        saturation = new int[numVertices];
+        neighbourColourCounts = new int[numVertices * stride];
+        uncoloured = new long[graph.getNumWords()];
+        for (int v = 0; v < numVertices; v++) {
+            uncoloured[v >>> 6] |= 1L << v;
+        }
+        numUncoloured = numVertices;
+        maxColour = 0;
+        deepestPartial = null;
+        deepestNumColoured = -1;
+        for (int v = 0; v < numVertices; v++) {
+            if (precolours[v] != 0) {
+                if (neighbourColourCounts[v * stride + precolours[v]] != 0) {
+                    return false; //a neighbour was precoloured the same
+                }
+                assign(v, precolours[v]);
+            }
+        }
+        return true;
+    }
+
+    //returns true once the search should stop: at the first colouring, or at one as small as the lower bound
+    private boolean search(int depth) {
+        stats.visit(depth);
+        if (stopCondition != null) {
+            if (stopCondition.getAsBoolean()) {
+                stopped = true;
+                return true;
+            }
+            if (numVertices - numUncoloured > deepestNumColoured) {
+                deepestNumColoured = numVertices - numUncoloured;
+                deepestPartial = colours.clone();
+            }
+        }
+        if (maxColour >= bestNumColours) {
+            return false; //a better colouring has been found since this branch was entered
+        }
+        if (numUncoloured == 0) {
+            best = colours.clone();
+            bestNumColours = maxColour;
+            return stopAtFirst || bestNumColours <= lowerBound;
+        }
+
+        int vertex = selectVertex();
+        int limit = Math.min(bestNumColours - 1, maxColour + 1); //colours above the limit cannot improve on the best
+        int numOptions = limit - saturationBelow(vertex, limit);
+        for (int colour = 1; colour <= limit; colour++) {
+            if (neighbourColourCounts[vertex * stride + colour] != 0) {
+                continue;
+            }
+            if (numOptions > 1) {
+                stats.guess();
+            }
+            int previousMaxColour = maxColour;
+            assign(vertex, colour);
+
+            //recursive step
+            if (search(depth + 1)) {
+                return true;
+            }
+
+            //backtracking
+            unassign(vertex, colour);
+            maxColour = previousMaxColour;
+            stats.backtrack();
+            limit = Math.min(bestNumColours - 1, maxColour + 1); //a better colouring may have been found below
+        }
+        return false;
+    }
+
+    //the uncoloured vertex with the highest saturation, ties broken by the number of uncoloured neighbours
+    private int selectVertex() {
+        int bestVertex = -1;
+        int bestSaturation = -1;
+        int bestDegree = -1;
+        for (int word = 0; word < uncoloured.length; word++) {
+            for (long bits = uncoloured[word]; bits != 0; bits &= bits - 1) {
+                int v = (word << 6) + Long.numberOfTrailingZeros(bits);
+                if (saturation[v] < bestSaturation) {
+                    continue;
+                }
+                int degree = uncolouredDegree(v);
+                if (saturation[v] > bestSaturation || degree > bestDegree) {
+                    bestVertex = v;
+                    bestSaturation = saturation[v];
+                    bestDegree = degree;
+                }
+            }
+        }
+        return bestVertex;
+    }
+
+    private int uncolouredDegree(int vertex) {
+        long[] row = graph.getAdjacencyRow(vertex);
+        int degree = 0;
+        for (int word = 0; word < row.length; word++) {
+            degree += Long.bitCount(row[word] & uncoloured[word]);
+        }
+        return degree;
+    }
+
+    //the number of colours 1 through limit held by the vertex's neighbours
+    private int saturationBelow(int vertex, int limit) {
+        int count = 0;
+        for (int colour = 1; colour <= limit; colour++) {
+            if (neighbourColourCounts[vertex * stride + colour] != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void assign(int vertex, int colour) {
+        colours[vertex] = colour;
+        uncoloured[vertex >>> 6] &= ~(1L << vertex);
+        numUncoloured--;
+        maxColour = Math.max(maxColour, colour);
+        for (int neighbour : neighbours[vertex]) {
+            if (neighbourColourCounts[neighbour * stride + colour]++ == 0) {
+                saturation[neighbour]++;
+            }
+        }
+    }
+
+    private void unassign(int vertex, int colour) {
+        colours[vertex] = 0;
+        uncoloured[vertex >>> 6] |= 1L << vertex;
+        numUncoloured++;
+        for (int neighbour : neighbours[vertex]) {
+            if (--neighbourColourCounts[neighbour * stride + colour] == 0) {
+                saturation[neighbour]--;
+            }
+        }
+    }
+
+    //---- helper methods ----
+    private int maxPrecolour() {
+        int max = 0;
+        for (int colour : precolours) {
+            max = Math.max(max, colour);
+        }
+        return max;
+    }
+
+    //the size of the largest clique among greedy cliques grown from every vertex, adding the candidate with the most
+    //remaining candidates as neighbours at each step
+    private int findLargestClique() {
+        int numWords = graph.getNumWords();
+        long[] candidates = new long[numWords];
+        int largest = (numVertices > 0) ? 1 : 0;
+        for (int start = 0; start < numVertices; start++) {
+            if (graph.getDegree(start) < largest) {
+                continue; //a clique through this vertex cannot be larger
+            }
+            System.arraycopy(graph.getAdjacencyRow(start), 0, candidates, 0, numWords);
+            int size = 1;
+            while (true) {
+                int next = -1;
+                int nextDegree = -1;
+                for (int word = 0; word < numWords; word++) {
+                    for (long bits = candidates[word]; bits != 0; bits &= bits - 1) {
+                        int v = (word << 6) + Long.numberOfTrailingZeros(bits);
+                        long[] row = graph.getAdjacencyRow(v);
+                        int degree = 0;
+                        for (int w = 0; w < numWords; w++) {
+                            degree += Long.bitCount(row[w] & candidates[w]);
+                        }
+                        if (degree > nextDegree) {
+                            next = v;
+                            nextDegree = degree;
+                        }
+                    }
+                }
+                if (next < 0) {
+                    break;
+                }
+                size++;
+                long[] row = graph.getAdjacencyRow(next);
+                for (int word = 0; word < numWords; word++) {
+                    candidates[word] &= row[word];
+                }
+            }
+            largest = Math.max(largest, size);
+        }
+        return largest;
+    }
+}
@@ -0,0 +1,36 @@
+import java.util.*;
+
+public class DSaturSolver extends Solver {
+    /*
+    Solves the Sudoku puzzle as a graph colouring problem with DSaturColouring: every node is a vertex, the clues are
+    precoloured vertices, and a solution is a colouring with at most getMaxValue() colours (9 for a 9x9 board).
+    Works on any Graph whose edges have been built, not only on Sudoku boards.
+     */
+
+    public DSaturSolver(Graph sudokuGraph) {
+        super(sudokuGraph);
+    }
+
+    @Override
+    protected boolean search() {
+        DSaturColouring dsatur = new DSaturColouring(ColouringGraph.fromGraph(sudokuGraph));
+        dsatur.setStats(stats);
+        dsatur.setStopCondition(this::isOutOfBudget);
+        for (Node node : sudokuGraph.getAllNodes()) {
+            dsatur.precolour(node.getIndex(), node.getValue());
+        }
+
+        int[] colours = dsatur.findColouring(sudokuGraph.getMaxValue());
+        if (colours == null) {
+            int[] partial = dsatur.getDeepestPartialColouring();
+            if (partial != null) {
+                recordPartial((int) Arrays.stream(partial).filter(colour -> colour != 0).count(), partial);
+            }
+            return false;
+        }
+        for (Node node : sudokuGraph.getAllNodes()) {
+            node.changeValue(colours[node.getIndex()]);
+        }
+        return true;
+    }
+}
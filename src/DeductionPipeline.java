@@ -0,0 +1,188 @@
+import java.util.*;
+
+public class DeductionPipeline {
+    /*
+    Runs a chain of DeductionStages on the candidate domains of a Graph before any search. The stages are tried in
+    order, and whenever one removes candidates the chain starts again from the first, so a harder technique is only
+    used once every easier one is stuck. When no stage can remove anything more, every cell left with a single
+    candidate is filled in. A Trace records how often each technique fired and grades the puzzle by the hardest one
+    it needed.
+     */
+
+    //how hard a puzzle is for a human solver using the pipeline's techniques
+    public enum Grade {
+        EASY, //singles only
+        MEDIUM, //locked candidates and pairs
+        HARD, //triples, X-Wings and harder
+        NEEDS_SEARCH, //not solved by the pipeline's techniques alone
+        INVALID //the techniques found a contradiction: there is no solution
+    }
+
+    //the outcome of running the pipeline on one board
+    public static final class Trace {
+        private final Map<String, Integer> uses = new LinkedHashMap<>(); //the number of times each stage removed candidates
+        private final Map<String, Integer> eliminations = new LinkedHashMap<>(); //the candidates each stage removed
+        private int hardestDifficulty = 0;
+        private int numPlacements = 0;
+        private boolean consistent = true;
+        private boolean solved = false;
+
+        private Trace(List<DeductionStage> stages) {
+            for (DeductionStage stage : stages) {
+                uses.put(stage.getName(), 0);
+                eliminations.put(stage.getName(), 0);
+            }
+        }
+
+        public Map<String, Integer> getUses() {
+            return Collections.unmodifiableMap(uses);
+        }
+
+        public Map<String, Integer> getEliminations() {
+            return Collections.unmodifiableMap(eliminations);
+        }
+
+        //the names of the techniques that removed at least one candidate, in pipeline order
+        public List<String> getTechniquesUsed() {
+            List<String> used = new ArrayList<>();
+            for (Map.Entry<String, Integer> entry : uses.entrySet()) {
+                if (entry.getValue() > 0) {
+                    used.add(entry.getKey());
+                }
+            }
+            return used;
+        }
+
+        //the number of empty cells the pipeline filled in
+        public int getNumPlacements() {
+            return numPlacements;
+        }
+
+        public boolean isConsistent() {
+            return consistent;
+        }
+
+        public boolean isSolved() {
+            return solved;
+        }
+
+        public Grade getGrade() {
+            if (!consistent) {
+                return Grade.INVALID;
+            }
+            if (!solved) {
+                return Grade.NEEDS_SEARCH;
+            }
+            return (hardestDifficulty <= 1) ? Grade.EASY : (hardestDifficulty == 2) ? Grade.MEDIUM : Grade.HARD;
+        }
+
+        public String toJson() {
+            StringBuilder json = new StringBuilder("{\"grade\":\"").append(getGrade()).append("\",\"placements\":")
+                    .append(numPlacements).append(",\"techniques\":{");
+            String separator = "";
+            for (Map.Entry<String, Integer> entry : uses.entrySet()) {
+                json.append(separator).append('"').append(entry.getKey()).append("\":{\"uses\":").append(entry.getValue())
+                        .append(",\"eliminations\":").append(eliminations.get(entry.getKey())).append('}');
+                separator = ",";
+            }
+            return json.append("}}").toString();
+        }
+
+        private void record(DeductionStage stage, int removed) {
+            uses.merge(stage.getName(), 1, Integer::sum);
+            eliminations.merge(stage.getName(), removed, Integer::sum);
+            hardestDifficulty = Math.max(hardestDifficulty, stage.getDifficulty());
+        }
+    }
+
+    //attributes
+    private final List<DeductionStage> stages;
+
+    //constructor
+    public DeductionPipeline(List<DeductionStage> stages) {
+        if (stages.isEmpty()) {
+            throw new IllegalArgumentException("A deduction pipeline needs at least one stage");
+        }
+        this.stages = List.copyOf(stages);
+    }
+
+    //every standard technique, from naked singles to X-Wings
+    public static DeductionPipeline standard() {
+        return new DeductionPipeline(Arrays.asList(LogicalTechnique.values()));
+    }
+
+    //getters
+    public List<DeductionStage> getStages() {
+        return stages;
+    }
+
+    //methods
+    //runs the stages on the graph's candidates until none of them changes anything, then fills in every decided cell
+    public Trace run(Graph graph) {
+        SudokuTopology topology = graph.getTopology();
+        if (topology == null) {
+            throw new IllegalArgumentException("Deductions can only run on graphs constructed from a Sudoku board");
+        }
+        int[] domains = new int[topology.getNumCells()];
+        for (int cell = 0; cell < domains.length; cell++) {
+            Node node = graph.getNode(cell);
+            domains[cell] = (node.getValue() != 0) ? (1 << node.getValue()) : node.getCandidateMask();
+        }
+
+        Trace trace = deduce(domains, topology);
+        if (!trace.consistent) {
+            return trace;
+        }
+
+        //fills in the cells the deductions have decided
+        for (int cell = 0; cell < domains.length; cell++) {
+            int domain = domains[cell];
+            if (Integer.bitCount(domain) == 1 && graph.getNode(cell).getValue() == 0) {
+                graph.getNode(cell).changeValue(Integer.numberOfTrailingZeros(domain));
+                trace.numPlacements++;
+            }
+        }
+        return trace;
+    }
+
+    //runs the stages on candidate domains directly (a bitmask per cell), narrowing them in place; nothing is placed
+    public Trace deduce(int[] domains, SudokuTopology topology) {
+        Trace trace = new Trace(stages);
+        int stageIndex = 0;
+        while (stageIndex < stages.size()) {
+            DeductionStage stage = stages.get(stageIndex);
+            int removed = stage.apply(domains, topology);
+            if (removed == DeductionStage.CONTRADICTION || removed > 0 && hasEmptyDomain(domains)) {
+                trace.consistent = false;
+                return trace;
+            }
+            if (removed > 0) {
+                trace.record(stage, removed);
+                stageIndex = 0; //starts again from the cheapest technique
+            }
+            else {
+                stageIndex++;
+            }
+        }
+
+        boolean solved = true;
+        for (int domain : domains) {
+            if (Integer.bitCount(domain) != 1) {
+                solved = false;
+                break;
+            }
+        }
+        trace.solved = solved;
+        return trace;
+    }
+
+    //---- helper methods ----
+    private static boolean hasEmptyDomain(int[] domains) {
+        for (int domain : domains) {
+            if (domain == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,17 @@
+public interface DeductionStage {
+    /*
+    A logical deduction applied to the candidate domains of a board before any search (a bitmask per cell, bit v for
+    value v, as in the Propagator). A stage only removes candidates it can prove impossible, so it never guesses; a
+    DeductionPipeline repeats the stages until none of them can remove anything more.
+     */
+    int CONTRADICTION = -1; //returned by apply when the domains cannot be completed
+
+    //the name reported in a deduction trace
+    String getName();
+
+    //how hard the technique is for a human solver, from 1 (singles) upwards; the hardest stage used grades a puzzle
+    int getDifficulty();
+
+    //removes the candidates the technique rules out, returning how many were removed (or CONTRADICTION)
+    int apply(int[] domains, SudokuTopology topology);
+}
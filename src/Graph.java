@@ -1,43 +1,106 @@
 import java.util.*;
 
 public class Graph {
+    private static final int[] NO_NEIGHBOURS = new int[0];
+
     //attributes
     private int numVertices;
     private int numEdges;
-    private Set<Node> allNodes = new HashSet<>();
+    private Node[] nodes = new Node[16]; //nodes are addressed by index; Sudoku cells use their row-major cell index
+    private List<Node> allNodesView = Collections.emptyList();
+    private SudokuTopology topology; //the grid layout a graph was constructed from (null for general graphs)
+    private int maxValue = 9; //values 1 through maxValue: the size of a Sudoku board, 9 for general graphs
+    private int valueStride = 10; //values 0 through maxValue are tracked for every node
+
+    //adjacency lists indexed by node: a Sudoku graph shares the read-only peer table of its topology,
+    //which is only copied if an edge is later added by hand
+    private int[][] adjacency = new int[16][];
+    private int[] degrees = new int[16];
+    private boolean sharesTopologyEdges = false;
+
+    //candidate-domain bookkeeping: neighbourValCounts[index * valueStride + v] counts the neighbours of a node
+    //currently holding the value v, and blockedMasks[index] has bit v set whenever that count is non-zero
+    private int[] neighbourValCounts = new int[16 * valueStride];
+    private int[] blockedMasks = new int[16];
+
+    //a Zobrist hash of the current values: the xor of zobristKey(index, value) over every node holding a value,
+    //updated on every value change, so equal assignments reached in any order hash the same
+    private long zobristHash = 0;
 
     //constructors
     public Graph(){} //blank constructor to create an empty graph
 
-    public Graph(int[][] sudokuArr) { //constructs a graph from a 2D array of integers
-        for (int row = 0; row < 9; row++) {
-            for (int col = 0; col < 9; col++) {
-                int nodeVal = sudokuArr[row][col];
-                Position nodePosn = new Position(row, col);
-                Node newNode = new Node(nodeVal, nodePosn);
-                if (nodeVal == 0){
-                    newNode.fix();
-                }
-                addNode(newNode);
+    public Graph(int[][] sudokuArr) { //constructs a graph from a 2D array of integers (9x9, 16x16, 25x25, ...)
+        this(SudokuTopology.forSize(sudokuArr.length));
+        int size = topology.getSize();
+        for (int row = 0; row < size; row++) {
+            if (sudokuArr[row].length != size) {
+                throw new IllegalArgumentException("Row " + row + " of a " + size + "x" + size + " board has " + sudokuArr[row].length + " cells");
             }
+            for (int col = 0; col < size; col++) {
+                addCell(sudokuArr[row][col]);
+            }
+        }
+    }
+
+    public Graph(int[] cellValues) { //constructs a graph from the cell values of a board (81 for a 9x9 board), listed row by row
+        this(SudokuTopology.forNumCells(cellValues.length));
+        for (int cell = 0; cell < topology.getNumCells(); cell++) {
+            addCell(cellValues[cell]);
         }
     }
 
+    private Graph(SudokuTopology topology) {
+        int numCells = topology.getNumCells();
+        this.topology = topology;
+        this.maxValue = topology.getSize();
+        this.valueStride = maxValue + 1;
+        this.nodes = new Node[numCells];
+        this.adjacency = new int[numCells][];
+        this.degrees = new int[numCells];
+        this.neighbourValCounts = new int[numCells * valueStride];
+        this.blockedMasks = new int[numCells];
+    }
+
     //methods
     public void addNode(Node otherNode){
-        allNodes.add(otherNode);
+        if (otherNode.getGraph() != null) {
+            throw new IllegalArgumentException("Node at (" + otherNode.getPosn().getRow() + ", "
+                    + otherNode.getPosn().getCol() + ") already belongs to a graph");
+        }
+        ensureCapacity(numVertices + 1);
+        topology = null; //a hand-built graph no longer follows the grid layout
+        otherNode.attach(this, numVertices);
+        nodes[numVertices] = otherNode;
+        adjacency[numVertices] = NO_NEIGHBOURS;
+        zobristHash ^= zobristKey(numVertices, otherNode.getValue());
         numVertices++;
+        allNodesView = Collections.unmodifiableList(Arrays.asList(nodes).subList(0, numVertices));
     }
 
     public void addEdge(Node node1, Node node2){
-        node1.addNeighbour(node2);
-        node2.addNeighbour(node1);
+        if (node1.getGraph() != this || node2.getGraph() != this) {
+            throw new IllegalArgumentException("Both nodes must belong to this graph before they can be connected");
+        }
+        int index1 = node1.getIndex();
+        int index2 = node2.getIndex();
+        if (index1 == index2 || isAdjacent(index1, index2)) {
+            return;
+        }
+        if (sharesTopologyEdges) {
+            unshareTopologyEdges();
+        }
+
+        appendNeighbour(index1, index2);
+        appendNeighbour(index2, index1);
+        addNeighbourVal(index1, node2.getValue());
+        addNeighbourVal(index2, node1.getValue());
         numEdges++;
     }
 
     public boolean isFilled(){
-        for(Node node : this.getAllNodes()){
-            if(node.getValue() == 0){
+        for (int i = 0; i < numVertices; i++) {
+            if (nodes[i].getValue() == 0) {
                 return false;
             }
         }
@@ -46,16 +109,44 @@ public class Graph {
 
     //getters for single or multiple nodes in the graph
     public Optional<Node> getNode(Position posn){
-        for (Node node : allNodes){ //
-            if (node.getPosn().isEqual(posn)){
-                return Optional.of(node);
+        if (topology != null) { //grid cells are stored at their cell index
+            int row = posn.getRow();
+            int col = posn.getCol();
+            int size = topology.getSize();
+            if (row < 0 || row >= size || col < 0 || col >= size) {
+                return Optional.empty();
+            }
+            return Optional.of(nodes[topology.getCellIndex(row, col)]);
+        }
+        for (int i = 0; i < numVertices; i++) {
+            if (nodes[i].getPosn().isEqual(posn)) {
+                return Optional.of(nodes[i]);
             }
         }
         return Optional.empty();
     }
 
-    public Set<Node> getAllNodes(){
-        return allNodes;
+    public Node getNode(int index) {
+        return nodes[index];
+    }
+
+    public List<Node> getAllNodes(){
+        return allNodesView;
+    }
+
+    //the shared layout of a graph built from a Sudoku board, or null for a general graph
+    public SudokuTopology getTopology() {
+        return topology;
+    }
+
+    //the largest value a node can take: the size of a Sudoku board (9 for general graphs)
+    public int getMaxValue() {
+        return maxValue;
+    }
+
+    //bitmask with bits 1 through getMaxValue() set: bit v represents the value v
+    public int getAllValuesMask() {
+        return (1 << (maxValue + 1)) - 2;
     }
 
     //getters for the size of the graph
@@ -67,138 +158,225 @@ public class Graph {
         return numEdges;
     }
 
+    //getters for the adjacency of a single node, addressed by index
+    public int getDegree(int index) {
+        return degrees[index];
+    }
+
+    public int getNeighbourIndex(int index, int i) {
+        return adjacency[index][i];
+    }
+
+    //the adjacency list of a node: only its first getDegree(index) entries are valid, and it must not be modified
+    public int[] getNeighbourIndices(int index) {
+        return adjacency[index];
+    }
+
+    //bitmask of the values (bit v for value v) currently held by at least one neighbour of a node
+    public int getBlockedMask(int index) {
+        return blockedMasks[index];
+    }
+
+    //a hash of the current values of all nodes, maintained incrementally (see zobristKey)
+    public long getZobristHash() {
+        return zobristHash;
+    }
+
+    //the random-looking key of a node holding a value (0 for an empty node): a SplitMix64 mix of the pair, so keys
+    //need no table, whatever the size of the graph
+    public static long zobristKey(int index, int value) {
+        if (value == 0) {
+            return 0;
+        }
+        long z = (((long) index << 6 | value) + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
     //creates a copy of a graph (including copies of all individual nodes)
     public Graph copy() {
-        Graph newGraph = new Graph();
-        Map<Node, Node> nodeMap = new HashMap<>(); //maps old nodes to copied nodes
+        Graph newGraph = (topology != null) ? new Graph(topology) : new Graph();
+        newGraph.maxValue = maxValue;
+        newGraph.valueStride = valueStride;
+        newGraph.ensureCapacity(numVertices);
 
-        //copies all old nodes to newGraph
-        for (Node node : this.getAllNodes()) {
+        //copies all old nodes to newGraph, keeping their indices
+        for (int i = 0; i < numVertices; i++) {
+            Node node = nodes[i];
             Node newNode = new Node(node.getValue(), node.getPosn());
             if (node.isFixed()) {
                 newNode.fix();
             }
-            newGraph.addNode(newNode);
-            nodeMap.put(node, newNode);
+            newNode.attach(newGraph, i);
+            newGraph.nodes[i] = newNode;
         }
+        newGraph.numVertices = numVertices;
+        newGraph.allNodesView = Collections.unmodifiableList(Arrays.asList(newGraph.nodes).subList(0, numVertices));
 
-        //copies the neighbours of all nodes to the new nodes
-        for (Node node : this.getAllNodes()) {
-            Node newNode = nodeMap.get(node);
-            for (Node neighbour : node.getAllNeighbours()) {
-                Node newNeighbour = nodeMap.get(neighbour);
-                newGraph.addEdge(newNode, newNeighbour);
-            }
+        //copies the adjacency (a shared topology stays shared) and the candidate-domain bookkeeping
+        newGraph.sharesTopologyEdges = sharesTopologyEdges;
+        for (int i = 0; i < numVertices; i++) {
+            newGraph.adjacency[i] = sharesTopologyEdges ? adjacency[i] : adjacency[i].clone();
         }
+        System.arraycopy(degrees, 0, newGraph.degrees, 0, numVertices);
+        System.arraycopy(neighbourValCounts, 0, newGraph.neighbourValCounts, 0, numVertices * valueStride);
+        System.arraycopy(blockedMasks, 0, newGraph.blockedMasks, 0, numVertices);
+        newGraph.numEdges = numEdges;
+        newGraph.zobristHash = zobristHash;
 
         return newGraph;
     }
 
-    //displays a 9x9 Sudoku Graph in the shell
+    //displays a Sudoku Graph (9x9 or larger) in the shell
     public void printSudokuGraph(){
-        int[][] arrayGraph = new int[9][9];
-        for (Node node : allNodes){
+        int size = (topology != null) ? topology.getSize() : 9;
+        int boxSize = (topology != null) ? topology.getBoxSize() : 3;
+        int[][] arrayGraph = new int[size][size];
+        for (Node node : getAllNodes()){
             int row = node.getPosn().getRow();
             int col = node.getPosn().getCol();
             int val = node.getValue();
             arrayGraph[row][col] = val;
         }
 
-        //prints out the 2D array in a Sudoku-like format
+        //prints out the 2D array in a Sudoku-like format, with every value padded to the width of the largest
+        int width = String.valueOf(size).length();
+        String format = "%" + width + "s ";
+        String divider = "-".repeat((width + 1) * size + 2 * (boxSize - 1) - 1);
         System.out.println();
-        for (int row = 0; row < 9; row++) {
-            for (int col = 0; col < 9; col++) {
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
                 if (arrayGraph[row][col] == 0){ //prints out an "X" to represent unassigned nodes
-                    System.out.print("X ");
+                    System.out.printf(format, "X");
                 }
                 else{
-                    System.out.print(arrayGraph[row][col] + " ");
+                    System.out.printf(format, arrayGraph[row][col]);
                 }
-                if ((col + 1) % 3 == 0 && col != 8) {
+                if ((col + 1) % boxSize == 0 && col != size - 1) {
                     System.out.print("| "); //adds a vertical divider to represent a box
                 }
             }
             System.out.println();
-            if ((row + 1) % 3 == 0 && row != 8) {
-                System.out.println("---------------------"); //adds a horizontal divider to represent a box
+            if ((row + 1) % boxSize == 0 && row != size - 1) {
+                System.out.println(divider); //adds a horizontal divider to represent a box
             }
         }
 
         System.out.println();
     }
 
-    //checks whether the graph represents a valid Sudoku solution based on 2 conditions
+    //checks whether the graph represents a valid Sudoku solution: every node holds a value 1 through 9 (or the size of
+    //a larger board), and no row, column or box holds a value twice (see SolutionVerifier for the first violation)
     public boolean isSolution(){
-        Set<String> seen = new HashSet<>();
-
-        for (Node node : getAllNodes()) {
-            int value = node.getValue();
-            int row = node.getPosn().getRow();
-            int col = node.getPosn().getCol();
-            int boxIndex = node.getBoxNumber();
+        return SolutionVerifier.verify(this) == null;
+    }
 
-            //condition 1: nodes only have valid integer values 1 through 9
-            if(value > 9 || value < 1){
-                return false;
-            }
+    //builds edges for Sudoku graph between nodes in the same column, row, or box
+    public void buildSudokuEdges() {
+        if (sharesTopologyEdges) {
+            return; //edges have already been built
+        }
+        if (topology == null || numVertices != topology.getNumCells() || numEdges != 0) {
+            throw new IllegalStateException("Sudoku edges can only be built on an unconnected graph of a full Sudoku board");
+        }
 
-            //creates a key for a number in each row, column, and box
-            String rowKey = value + " in row " + row;
-            String colKey = value + " in col " + col;
-            String boxKey = value + " in box " + boxIndex;
+        //every node adopts its row of the shared, precomputed peer table
+        for (int i = 0; i < numVertices; i++) {
+            adjacency[i] = topology.getPeers(i);
+            degrees[i] = adjacency[i].length;
+        }
+        sharesTopologyEdges = true;
+        numEdges = topology.getNumEdges();
 
-            //condition 2: no duplicates can be found in any row, column, or box
-            if (!seen.add(rowKey) || !seen.add(colKey) || !seen.add(boxKey)) {
-                return false;
+        //accounts for the values neighbours already hold
+        for (int i = 0; i < numVertices; i++) {
+            int value = nodes[i].getValue();
+            int[] neighbours = adjacency[i];
+            for (int j = 0; j < neighbours.length; j++) {
+                addNeighbourVal(neighbours[j], value);
             }
         }
-        return true;
     }
 
-    //helper method to build Sudoku edges in a graph
-    private void addEdgesWithinGroup(Set<Node> group) {
-        List<Node> nodes = new ArrayList<>(group); //converts nodes into a list for indexing
+    //---- helper methods for the adjacency and the candidate-domain bookkeeping ----
+    //called by a node whenever its value changes, to keep the domains of its neighbours up to date
+    void valueChanged(int index, int oldValue, int newValue) {
+        zobristHash ^= zobristKey(index, oldValue) ^ zobristKey(index, newValue);
+        int[] neighbours = adjacency[index];
+        for (int i = 0, degree = degrees[index]; i < degree; i++) {
+            removeNeighbourVal(neighbours[i], oldValue);
+            addNeighbourVal(neighbours[i], newValue);
+        }
+    }
 
-        for (int i = 0; i < nodes.size(); i++) {
-            for (int j = i + 1; j < nodes.size(); j++) {
-                Node node1 = nodes.get(i);
-                Node node2 = nodes.get(j);
-                addEdge(node1, node2); //adds edge between the two nodes
-            }
+    private void addNeighbourVal(int index, int val) {
+        if (val != 0 && neighbourValCounts[index * valueStride + val]++ == 0) {
+            blockedMasks[index] |= (1 << val);
         }
     }
 
-    //builds edges for Sudoku graph between nodes in the same column, row, or box
-    public void buildSudokuEdges() {
-        //creates sets to represent all rows, columns, and boxes
-        Set<Node>[] rows = new HashSet[9];
-        Set<Node>[] columns = new HashSet[9];
-        Set<Node>[] boxes = new HashSet[9];
+    private void removeNeighbourVal(int index, int val) {
+        if (val != 0 && --neighbourValCounts[index * valueStride + val] == 0) {
+            blockedMasks[index] &= ~(1 << val);
+        }
+    }
 
-        //initializes the sets for each group
-        for (int i = 0; i < 9; i++) {
-            rows[i] = new HashSet<>();
-            columns[i] = new HashSet<>();
-            boxes[i] = new HashSet<>();
+    //adds a cell of a Sudoku board at the next cell index, fixing it if it is a clue
+    private void addCell(int nodeVal) {
+        if (nodeVal < 0 || nodeVal > maxValue) {
+            Position posn = topology.getPosition(numVertices);
+            throw new IllegalArgumentException("Cell (" + posn.getRow() + ", " + posn.getCol() + ") holds " + nodeVal
+                    + ", outside the values 0 to " + maxValue);
+        }
+        Node newNode = new Node(nodeVal, topology.getPosition(numVertices));
+        if (nodeVal != 0) {
+            newNode.fix();
+        }
+        newNode.attach(this, numVertices);
+        nodes[numVertices] = newNode;
+        adjacency[numVertices] = NO_NEIGHBOURS;
+        zobristHash ^= zobristKey(numVertices, nodeVal);
+        numVertices++;
+        if (numVertices == nodes.length) {
+            allNodesView = Collections.unmodifiableList(Arrays.asList(nodes));
         }
+    }
 
-        //adds nodes to their row, column, and box groups
-        for (Node node : allNodes) {
-            int row = node.getPosn().getRow();
-            int col = node.getPosn().getCol();
-            int box = node.getBoxNumber();
+    private boolean isAdjacent(int index1, int index2) {
+        int[] neighbours = adjacency[index1];
+        for (int i = 0, degree = degrees[index1]; i < degree; i++) {
+            if (neighbours[i] == index2) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-            rows[row].add(node);
-            columns[col].add(node);
-            boxes[box].add(node);
+    private void appendNeighbour(int index, int neighbourIndex) {
+        if (degrees[index] == adjacency[index].length) {
+            adjacency[index] = Arrays.copyOf(adjacency[index], Math.max(4, 2 * degrees[index]));
         }
+        adjacency[index][degrees[index]++] = neighbourIndex;
+    }
 
-        //creates an edge between every pair of nodes within each group
-        for (int i = 0; i < 9; i++) {
-            addEdgesWithinGroup(rows[i]);
-            addEdgesWithinGroup(columns[i]);
-            addEdgesWithinGroup(boxes[i]);
+    //gives every node a private copy of its adjacency list before the shared topology is modified
+    private void unshareTopologyEdges() {
+        for (int i = 0; i < numVertices; i++) {
+            adjacency[i] = adjacency[i].clone();
         }
+        sharesTopologyEdges = false;
     }
 
+    private void ensureCapacity(int capacity) {
+        if (capacity <= nodes.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, 2 * nodes.length);
+        nodes = Arrays.copyOf(nodes, newCapacity);
+        adjacency = Arrays.copyOf(adjacency, newCapacity);
+        degrees = Arrays.copyOf(degrees, newCapacity);
+        neighbourValCounts = Arrays.copyOf(neighbourValCounts, newCapacity * valueStride);
+        blockedMasks = Arrays.copyOf(blockedMasks, newCapacity);
+    }
 }
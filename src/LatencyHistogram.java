@@ -0,0 +1,114 @@
+import java.util.*;
+
+public class LatencyHistogram {
+    /*
+    A log-linear histogram of non-negative long values (typically nanoseconds), in the style of HdrHistogram: values
+    are grouped by their highest set bit, and each such range is split into SUB_BUCKETS / 2 equal buckets, so every
+    recorded value is resolved to within about 3% while the histogram stays a fixed array of 1920 counts.
+     */
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    //attributes
+    private final long[] counts = new long[(64 - SUB_BUCKET_BITS + 2) * (SUB_BUCKETS / 2)];
+    private long totalCount = 0;
+    private long sum = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = 0;
+
+    //getters
+    public long getCount() {
+        return totalCount;
+    }
+
+    public long getMin() {
+        return (totalCount == 0) ? 0 : min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return (totalCount == 0) ? 0 : (double) sum / totalCount;
+    }
+
+    //the smallest recorded value (to within the histogram's resolution) at or below which the given percentage of values lie
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(max, Math.max(min, highestValueInBucket(bucket)));
+            }
+        }
+        return max;
+    }
+
+    //methods
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Histogram values must be non-negative, got " + value);
+        }
+        counts[bucketOf(value)]++;
+        totalCount++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void add(LatencyHistogram other) {
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            counts[bucket] += other.counts[bucket];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    //---- output ----
+    public String toJson() {
+        return String.format(Locale.ROOT, "{\"count\":%d,\"min\":%d,\"mean\":%.1f,\"p50\":%d,\"p90\":%d,\"p99\":%d,\"p99.9\":%d,\"max\":%d}",
+                getCount(), getMin(), getMean(), getValueAtPercentile(50), getValueAtPercentile(90),
+                getValueAtPercentile(99), getValueAtPercentile(99.9), getMax());
+    }
+
+    //one line per non-empty bucket: the highest value of the bucket, its count, and the cumulative percentile
+    public String toCsv() {
+        StringBuilder csv = new StringBuilder("value,count,percentile\n");
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            if (counts[bucket] != 0) {
+                seen += counts[bucket];
+                csv.append(highestValueInBucket(bucket)).append(',').append(counts[bucket]).append(',')
+                        .append(String.format(Locale.ROOT, "%.4f", 100.0 * seen / totalCount)).append('\n');
+            }
+        }
+        return csv.toString();
+    }
+
+    //---- helper methods ----
+    //values below SUB_BUCKETS map to themselves; above, the highest set bit and the SUB_BUCKET_BITS - 1 bits below it choose the bucket
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+        int subBucket = (int) (value >>> magnitude) - SUB_BUCKETS / 2;
+        return magnitude * (SUB_BUCKETS / 2) + SUB_BUCKETS / 2 + subBucket;
+    }
+
+    private static long highestValueInBucket(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int magnitude = (bucket - SUB_BUCKETS / 2) / (SUB_BUCKETS / 2);
+        long subBucket = (bucket - SUB_BUCKETS / 2) % (SUB_BUCKETS / 2) + SUB_BUCKETS / 2;
+        return ((subBucket + 1) << magnitude) - 1;
+    }
+}
@@ -0,0 +1,301 @@
+public enum LogicalTechnique implements DeductionStage {
+    /*
+    The standard human solving techniques, from the cheapest to the most involved. They work on any house layout of
+    a SudokuTopology: houses are the rows, then the columns, then the boxes, and a cell's index within a row (column)
+    house is its column (row).
+     */
+
+    //a cell with a single candidate holds that value, which is removed from its peers
+    NAKED_SINGLES("Naked singles", 1) {
+        @Override
+        public int apply(int[] domains, SudokuTopology topology) {
+            int removed = 0;
+            for (int cell = 0; cell < domains.length; cell++) {
+                int domain = domains[cell];
+                if (isSingleton(domain)) {
+                    for (int peer : topology.getPeers(cell)) {
+                        removed += removeCandidates(domains, peer, domain);
+                    }
+                }
+            }
+            return removed;
+        }
+    },
+
+    //a value with a single possible cell in a house goes in that cell
+    HIDDEN_SINGLES("Hidden singles", 1) {
+        @Override
+        public int apply(int[] domains, SudokuTopology topology) {
+            int allValues = allValues(topology);
+            int removed = 0;
+            for (int house = 0; house < topology.getNumHouses(); house++) {
+                int[] cells = topology.getHouse(house);
+                int seenOnce = 0;
+                int seenTwice = 0;
+                for (int cell : cells) {
+                    seenTwice |= seenOnce & domains[cell];
+                    seenOnce |= domains[cell];
+                }
+                if (seenOnce != allValues) {
+                    return CONTRADICTION; //some value has no place left in the house
+                }
+                int unique = seenOnce & ~seenTwice;
+                for (int cell : cells) {
+                    int hidden = domains[cell] & unique;
+                    if (hidden == 0 || hidden == domains[cell]) {
+                        continue;
+                    }
+                    if (!isSingleton(hidden)) {
+                        return CONTRADICTION; //two values can only go in the same cell
+                    }
+                    removed += removeCandidates(domains, cell, domains[cell] & ~hidden);
+                }
+            }
+            return removed;
+        }
+    },
+
+    //pointing and claiming: if a value's cells in one house all lie in a second house, it is removed from the rest of the second
+    LOCKED_CANDIDATES("Locked candidates", 2) {
+        @Override
+        public int apply(int[] domains, SudokuTopology topology) {
+            int size = topology.getSize();
+            int removed = 0;
+            for (int house = 0; house < topology.getNumHouses(); house++) {
+                for (int value = 1; value <= size; value++) {
+                    int bit = 1 << value;
+                    int[] shared = null; //the houses shared by every cell of the house that can hold the value
+                    int count = 0;
+                    boolean decided = false;
+                    for (int cell : topology.getHouse(house)) {
+                        if ((domains[cell] & bit) == 0) {
+                            continue;
+                        }
+                        decided |= (domains[cell] == bit);
+                        int[] cellHouses = topology.getHousesOfCell(cell);
+                        if (count++ == 0) {
+                            shared = cellHouses.clone();
+                        }
+                        else {
+                            for (int k = 0; k < shared.length; k++) {
+                                if (shared[k] != cellHouses[k]) {
+                                    shared[k] = -1;
+                                }
+                            }
+                        }
+                    }
+                    if (count < 2 || decided) {
+                        continue;
+                    }
+                    for (int other : shared) {
+                        if (other < 0 || other == house) {
+                            continue;
+                        }
+                        for (int cell : topology.getHouse(other)) {
+                            if (topology.getHousesOfCell(cell)[house / size] != house) {
+                                removed += removeCandidates(domains, cell, bit);
+                            }
+                        }
+                    }
+                }
+            }
+            return removed;
+        }
+    },
+
+    //two cells of a house with the same two candidates hold those values, which are removed from the rest of the house
+    NAKED_PAIRS("Naked pairs", 2) {
+        @Override
+        public int apply(int[] domains, SudokuTopology topology) {
+            return applyNakedSubsets(domains, topology, 2);
+        }
+    },
+
+    //two values whose only cells in a house are the same two cells: every other candidate is removed from those cells
+    HIDDEN_PAIRS("Hidden pairs", 2) {
+        @Override
+        public int apply(int[] domains, SudokuTopology topology) {
+            return applyHiddenSubsets(domains, topology, 2);
+        }
+    },
+
+    NAKED_TRIPLES("Naked triples", 3) {
+        @Override
+        public int apply(int[] domains, SudokuTopology topology) {
+            return applyNakedSubsets(domains, topology, 3);
+        }
+    },
+
+    HIDDEN_TRIPLES("Hidden triples", 3) {
+        @Override
+        public int apply(int[] domains, SudokuTopology topology) {
+            return applyHiddenSubsets(domains, topology, 3);
+        }
+    },
+
+    //if a value can only go in the same two columns of two rows, it is removed from the rest of those columns (and vice versa)
+    X_WING("X-Wing", 3) {
+        @Override
+        public int apply(int[] domains, SudokuTopology topology) {
+            int size = topology.getSize();
+            int removed = 0;
+            for (int value = 1; value <= size; value++) {
+                int bit = 1 << value;
+                for (int base = 0; base <= size; base += size) { //rows, then columns
+                    for (int a = 0; a < size; a++) {
+                        int positions = positionsOf(domains, topology.getHouse(base + a), bit);
+                        if (Integer.bitCount(positions) != 2) {
+                            continue;
+                        }
+                        for (int b = a + 1; b < size; b++) {
+                            if (positionsOf(domains, topology.getHouse(base + b), bit) != positions) {
+                                continue;
+                            }
+                            for (int mask = positions; mask != 0; mask &= mask - 1) {
+                                int[] crossLine = topology.getHouse(size - base + Integer.numberOfTrailingZeros(mask));
+                                for (int i = 0; i < size; i++) {
+                                    if (i != a && i != b) {
+                                        removed += removeCandidates(domains, crossLine[i], bit);
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            return removed;
+        }
+    };
+
+    //attributes
+    private final String name;
+    private final int difficulty;
+
+    //constructor
+    LogicalTechnique(String name, int difficulty) {
+        this.name = name;
+        this.difficulty = difficulty;
+    }
+
+    //getters
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getDifficulty() {
+        return difficulty;
+    }
+
+    //---- helper methods ----
+    private static boolean isSingleton(int domain) {
+        return domain != 0 && (domain & (domain - 1)) == 0;
+    }
+
+    private static int allValues(SudokuTopology topology) {
+        return (1 << (topology.getSize() + 1)) - 2;
+    }
+
+    //removes values from a cell's domain, returning how many of them it had
+    private static int removeCandidates(int[] domains, int cell, int valueMask) {
+        int removed = Integer.bitCount(domains[cell] & valueMask);
+        domains[cell] &= ~valueMask;
+        return removed;
+    }
+
+    //the indices, within a house, of the cells that can hold a value
+    private static int positionsOf(int[] domains, int[] house, int bit) {
+        int positions = 0;
+        for (int i = 0; i < house.length; i++) {
+            if ((domains[house[i]] & bit) != 0) {
+                positions |= 1 << i;
+            }
+        }
+        return positions;
+    }
+
+    //k undecided cells of a house whose candidates together are k values: those values are removed from the house's other cells
+    private static int applyNakedSubsets(int[] domains, SudokuTopology topology, int k) {
+        int removed = 0;
+        for (int house = 0; house < topology.getNumHouses(); house++) {
+            int[] cells = topology.getHouse(house);
+            int undecided = 0; //the indices within the house of the cells with between 2 and k candidates
+            for (int i = 0; i < cells.length; i++) {
+                int numCandidates = Integer.bitCount(domains[cells[i]]);
+                if (numCandidates >= 2 && numCandidates <= k) {
+                    undecided |= 1 << i;
+                }
+            }
+            if (Integer.bitCount(undecided) < k) {
+                continue;
+            }
+            for (int subset = firstSubset(k); subset < (1 << cells.length); subset = nextSubset(subset)) {
+                if ((subset & ~undecided) != 0) {
+                    continue;
+                }
+                int values = 0;
+                for (int mask = subset; mask != 0; mask &= mask - 1) {
+                    values |= domains[cells[Integer.numberOfTrailingZeros(mask)]];
+                }
+                if (Integer.bitCount(values) != k) {
+                    continue;
+                }
+                for (int i = 0; i < cells.length; i++) {
+                    if ((subset & (1 << i)) == 0) {
+                        removed += removeCandidates(domains, cells[i], values);
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    //k values whose possible cells in a house are the same k cells: every other candidate is removed from those cells
+    private static int applyHiddenSubsets(int[] domains, SudokuTopology topology, int k) {
+        int size = topology.getSize();
+        int[] positions = new int[size + 1];
+        int removed = 0;
+        for (int house = 0; house < topology.getNumHouses(); house++) {
+            int[] cells = topology.getHouse(house);
+            int hidden = 0; //the values with between 2 and k possible cells in the house
+            for (int value = 1; value <= size; value++) {
+                positions[value] = positionsOf(domains, cells, 1 << value);
+                int numPositions = Integer.bitCount(positions[value]);
+                if (numPositions >= 2 && numPositions <= k) {
+                    hidden |= 1 << value;
+                }
+            }
+            if (Integer.bitCount(hidden) < k) {
+                continue;
+            }
+            for (int subset = firstSubset(k) << 1; subset < (1 << (size + 1)); subset = nextSubset(subset)) {
+                if ((subset & ~hidden) != 0) {
+                    continue;
+                }
+                int union = 0;
+                for (int mask = subset; mask != 0; mask &= mask - 1) {
+                    union |= positions[Integer.numberOfTrailingZeros(mask)];
+                }
+                if (Integer.bitCount(union) != k) {
+                    continue;
+                }
+                for (int mask = union; mask != 0; mask &= mask - 1) {
+                    removed += removeCandidates(domains, cells[Integer.numberOfTrailingZeros(mask)], ~subset);
+                }
+            }
+        }
+        return removed;
+    }
+
+    //the smallest bitmask with k bits set, and the next larger one with as many bits (Gosper's hack)
+    private static int firstSubset(int k) {
+        return (1 << k) - 1;
+    }
+
+    private static int nextSubset(int subset) {
+        int lowest = subset & -subset;
+        int ripple = subset + lowest;
+        return (((ripple ^ subset) >>> 2) / lowest) | ripple;
+    }
+}
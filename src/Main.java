@@ -1,4 +1,5 @@
 import java.util.*;
+import java.util.function.*;
 
 public class Main {
     public static void main(String[] args) {
@@ -26,62 +27,38 @@ public class Main {
         int numRepetitions = 1;
         double runningSum = 0;
         for (int i = 0; i < numRepetitions; i++) {
-            //replace "OptimizedSolver(null)" below to test the efficiency of a different solver method
-            runningSum += testOnNSudokuProblems(new OptimizedSolver(null), numBoards, "25clueSudokus");
+            //replace "OptimizedSolver::new" below to test the efficiency of a different solver method
+            runningSum += testOnNSudokuProblems(OptimizedSolver::new, numBoards, "25clueSudokus");
         }
         System.out.println("avg time to solve " + numBoards + " Sudokus: " + runningSum/numRepetitions);
         */
     }
 
-    public static double testOnNSudokuProblems(Solver solver, int numBoards, String boardFileName) {
+    public static double testOnNSudokuProblems(Function<Graph, Solver> solverFactory, int numBoards, String boardFileName) {
         List<int[][]> sudokuBoards = SudokuParser.parseSudokuBoards(boardFileName);
 
-        //starts the timer
-        long startTime = System.nanoTime();
-
-        for (int i = 0; i < numBoards; i++) {
-            int[][] board = sudokuBoards.get(i);
-
-            //converts the board into a graph, and solves using the given solver
-            Graph currentSudokuGraph = new Graph(board);
-            currentSudokuGraph.buildSudokuEdges();
-            Solver solution = createSolverInstance(solver, currentSudokuGraph);
-
-            //(optional: may be modified to better test runtime) prints the original & solution Sudoku boards
-            System.out.println("Solving Sudoku #" + (i + 1));
-            currentSudokuGraph.printSudokuGraph();
-            if (solution.solve()) {
-                System.out.println("Solution for Sudoku #" + (i + 1) + " is found:");
-                currentSudokuGraph.printSudokuGraph();
-            } else {
-                System.out.println("No solution found for Sudoku #" + (i + 1));
+        //converts each board into a graph, and solves them in parallel using the given solver; a board taking over a
+        //second is solved again with dancing links
+        BatchSolver batchSolver = new BatchSolver(solverFactory);
+        batchSolver.setTimeLimitNanos(1_000_000_000L);
+        batchSolver.setFallback(DLXSolver::new, 10_000_000_000L);
+        batchSolver.solve(sudokuBoards.stream().limit(numBoards), false, result -> {
+            if (!result.isSolved()) {
+                System.out.println("No solution found for Sudoku #" + (result.getIndex() + 1) + " (" + result.getStatus() + ")");
             }
+        });
+
+        //reports the elapsed time, in seconds
+        double elapsedTimeSeconds = batchSolver.getElapsedSeconds();
+        System.out.println("Time taken to solve " + batchSolver.getNumBoards() + " Sudoku boards is: " + elapsedTimeSeconds + " seconds ("
+                + batchSolver.getThroughput() + " Sudokus per second on " + batchSolver.getParallelism() + " threads)");
+        System.out.println("Latency per Sudoku (ns): " + batchSolver.getLatencyHistogram().toJson());
+        if (batchSolver.getNumRetried() > 0) {
+            System.out.println(batchSolver.getNumRetried() + " boards ran out of time and were retried, " + batchSolver.getNumTimedOut() + " still unsolved");
         }
-
-        //ends the timer
-        long endTime = System.nanoTime();
-
-        //calculates the elapsed time, in seconds
-        double elapsedTimeSeconds = (endTime - startTime) / 1_000_000_000.0;
-        System.out.println("Time taken to solve " + numBoards + " Sudoku boards is: " + elapsedTimeSeconds + " seconds");
         return elapsedTimeSeconds;
     }
 
-    private static Solver createSolverInstance(Solver solverPrototype, Graph graph) {
-        if (solverPrototype instanceof DFSSolver) {
-            return new DFSSolver(graph);
-        }
-        else if (solverPrototype instanceof BFSSolver) {
-            return new BFSSolver(graph);
-        }
-        else if (solverPrototype instanceof OptimizedSolver) {
-            return new OptimizedSolver(graph);
-        }
-        else {
-            throw new IllegalArgumentException("Unsupported solver type: " + solverPrototype.getClass().getSimpleName());
-        }
-    }
-
     //---- BUNCH OF PRE-BUILT SUDOKU PUZZLES ----
     //*any non-zero values will become fixed "hints" within the puzzle
     public static int[][] getSuperEasySudokuProblem() {
@@ -189,5 +166,9 @@ public class Main {
         return emptySudokuProblem;
     }
 
-
+    //an empty board of any box size: 3 for 9x9, 4 for 16x16, 5 for 25x25
+    public static int[][] getEmptySudokuProblem(int boxSize) {
+        int size = boxSize * boxSize;
+        return new int[size][size];
+    }
 }
\ No newline at end of file
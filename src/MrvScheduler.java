@@ -0,0 +1,185 @@
+import java.util.*;
+
+public class MrvScheduler implements Propagator.DomainListener {
+    /*
+    Chooses the next node to assign: the most constrained one, i.e. the unassigned node with the fewest remaining
+    candidates, breaking ties by the largest number of unassigned neighbours (the degree heuristic).
+    Unassigned nodes are kept in buckets indexed by (domain size, unassigned degree), each an intrusive doubly linked
+    list over int arrays. Listening to the Propagator moves a node between buckets in O(1) whenever its domain changes,
+    including when the trail is undone, and picking the minimum scans a fixed number of buckets.
+     */
+
+    //attributes
+    private final Propagator propagator;
+    private final int maxDegree;
+    private final int[][] neighbours;
+
+    private final int[] head; //first node of each bucket, or -1
+    private final int[] next;
+    private final int[] prev;
+    private final int[] bucketOf; //the bucket a node is in, or -1 if it is not scheduled
+    private final int[] degree; //the number of scheduled neighbours of each node
+    private final int[] countPerDomainSize; //the number of scheduled nodes with each domain size
+    private int size = 0;
+
+    //constructors
+    //schedules every node that has no value in the graph
+    public MrvScheduler(Graph graph, Propagator propagator) {
+        int numNodes = propagator.getNumNodes();
+        this.propagator = propagator;
+        this.neighbours = new int[numNodes][];
+        int largestDegree = 0;
+        int maxDomainSize = 0; //domains only shrink from here on
+        for (int i = 0; i < numNodes; i++) {
+            neighbours[i] = propagator.getNeighbours(i);
+            largestDegree = Math.max(largestDegree, neighbours[i].length);
+            maxDomainSize = Math.max(maxDomainSize, propagator.getDomainSize(i));
+        }
+        this.maxDegree = largestDegree;
+
+        head = new int[(maxDomainSize + 1) * (maxDegree + 1)];
+        Arrays.fill(head, -1);
+        next = new int[numNodes];
+        prev = new int[numNodes];
+        bucketOf = new int[numNodes];
+        Arrays.fill(bucketOf, -1);
+        degree = new int[numNodes];
+        countPerDomainSize = new int[maxDomainSize + 1];
+
+        for (int i = 0; i < numNodes; i++) {
+            boolean unassigned = (graph != null) ? graph.getNode(i).getValue() == 0 : !propagator.isDecided(i);
+            if (unassigned) {
+                insert(i);
+            }
+        }
+        propagator.setListener(this);
+    }
+
+    //schedules every node whose domain is not yet a single value (e.g. for a search on a copy of the domains)
+    public MrvScheduler(Propagator propagator) {
+        this((Graph) null, propagator);
+    }
+
+    private MrvScheduler(MrvScheduler other, Propagator propagator) { //copies the buckets, in their current order
+        this.propagator = propagator;
+        this.maxDegree = other.maxDegree;
+        this.neighbours = other.neighbours;
+        this.head = other.head.clone();
+        this.next = other.next.clone();
+        this.prev = other.prev.clone();
+        this.bucketOf = other.bucketOf.clone();
+        this.degree = other.degree.clone();
+        this.countPerDomainSize = other.countPerDomainSize.clone();
+        this.size = other.size;
+        propagator.setListener(this);
+    }
+
+    //getters
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isScheduled(int index) {
+        return bucketOf[index] >= 0;
+    }
+
+    //methods
+    //an independent copy of the schedule that follows the given propagator, a copy of this scheduler's own: a search
+    //continuing on the copies picks its nodes exactly as it would have on the originals
+    public MrvScheduler copy(Propagator propagatorCopy) {
+        return new MrvScheduler(this, propagatorCopy);
+    }
+
+    //removes and returns the most constrained scheduled node, or -1 if none is left
+    public int pollMostConstrained() {
+        for (int domainSize = 0; domainSize < countPerDomainSize.length; domainSize++) {
+            if (countPerDomainSize[domainSize] == 0) {
+                continue;
+            }
+            for (int d = maxDegree; d >= 0; d--) {
+                int first = head[bucket(domainSize, d)];
+                if (first >= 0) {
+                    remove(first);
+                    return first;
+                }
+            }
+        }
+        return -1;
+    }
+
+    //schedules a node (again), e.g. when backtracking over its assignment
+    public void insert(int index) {
+        int d = 0;
+        for (int neighbour : neighbours[index]) {
+            if (bucketOf[neighbour] >= 0) {
+                d++;
+                moveToDegree(neighbour, degree[neighbour] + 1);
+            }
+        }
+        degree[index] = d;
+        link(index, bucket(propagator.getDomainSize(index), d));
+        size++;
+    }
+
+    public void remove(int index) {
+        unlink(index);
+        size--;
+        for (int neighbour : neighbours[index]) {
+            if (bucketOf[neighbour] >= 0) {
+                moveToDegree(neighbour, degree[neighbour] - 1);
+            }
+        }
+    }
+
+    @Override
+    public void domainChanged(int index, int oldDomain, int newDomain) {
+        int b = bucketOf[index];
+        if (b >= 0 && Integer.bitCount(oldDomain) != Integer.bitCount(newDomain)) {
+            unlink(index);
+            link(index, bucket(Integer.bitCount(newDomain), degree[index]));
+        }
+    }
+
+    //---- helper methods ----
+    private int bucket(int domainSize, int d) {
+        return domainSize * (maxDegree + 1) + d;
+    }
+
+    private void moveToDegree(int index, int newDegree) {
+        int domainSize = bucketOf[index] / (maxDegree + 1);
+        unlink(index);
+        degree[index] = newDegree;
+        link(index, bucket(domainSize, newDegree));
+    }
+
+    private void link(int index, int b) {
+        int first = head[b];
+        next[index] = first;
+        prev[index] = -1;
+        if (first >= 0) {
+            prev[first] = index;
+        }
+        head[b] = index;
+        bucketOf[index] = b;
+        countPerDomainSize[b / (maxDegree + 1)]++;
+    }
+
+    private void unlink(int index) {
+        int b = bucketOf[index];
+        if (prev[index] >= 0) {
+            next[prev[index]] = next[index];
+        }
+        else {
+            head[b] = next[index];
+        }
+        if (next[index] >= 0) {
+            prev[next[index]] = prev[index];
+        }
+        bucketOf[index] = -1;
+        countPerDomainSize[b / (maxDegree + 1)]--;
+    }
+}
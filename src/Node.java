@@ -1,11 +1,15 @@
 import java.util.*;
 
 public class Node implements Comparable<Node> {
+    //bitmask with bits 1 through 9 set: bit v represents the value v (the values of a standard 9x9 board)
+    public static final int ALL_VALUES_MASK = 0b11_1111_1110;
+
     //attributes
     private int value = 0; //the value (represented here as a number) can be imagined as a colour assignment
     private Position posn;
     private boolean isFixed = false;
-    private Set<Node> neighbours = new HashSet<>();
+    private Graph graph; //the graph holding this node's neighbours and candidate domain (null until added to one)
+    private int index = -1;
 
     //constructor
     public Node(int val, Position posn){
@@ -14,24 +18,51 @@ public class Node implements Comparable<Node> {
     }
 
     //getters
-    public Set<Node> getAllNeighbours(){
-        return this.neighbours;
+    public List<Node> getAllNeighbours(){
+        List<Node> neighbours = new ArrayList<>(getNumNeighbours());
+        for (int i = 0; i < getNumNeighbours(); i++) {
+            neighbours.add(getNeighbour(i));
+        }
+        return neighbours;
+    }
+
+    //allocation-free access to the neighbours, for use in the solvers
+    public int getNumNeighbours(){
+        return (this.graph == null) ? 0 : this.graph.getDegree(this.index);
+    }
+
+    public Node getNeighbour(int i){
+        return this.graph.getNode(this.graph.getNeighbourIndex(this.index, i));
     }
 
     public Set<Integer> getNeighbourVals(){
         Set<Integer> neighbourVals = new HashSet<>();
-        for(Node n : this.neighbours){
-            neighbourVals.add(n.value);
+        for (int i = 0; i < getNumNeighbours(); i++) {
+            neighbourVals.add(getNeighbour(i).value);
         }
         return neighbourVals;
     }
 
     public Set<Integer> getPossibleVals(){
-        Set<Integer> allValues = new HashSet<>(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9));
-        allValues.removeAll(getNeighbourVals());
+        Set<Integer> allValues = new HashSet<>();
+        int mask = getCandidateMask();
+        while (mask != 0) {
+            allValues.add(Integer.numberOfTrailingZeros(mask));
+            mask &= mask - 1;
+        }
         return allValues;
     }
 
+    //bitmask of the values (bit v for value v) that no neighbour currently holds
+    public int getCandidateMask(){
+        int allValues = (this.graph == null) ? ALL_VALUES_MASK : this.graph.getAllValuesMask();
+        return allValues & ~getBlockedMask();
+    }
+
+    public int getNumCandidates(){
+        return Integer.bitCount(getCandidateMask());
+    }
+
     public boolean isFixed(){
         return this.isFixed;
     }
@@ -44,14 +75,33 @@ public class Node implements Comparable<Node> {
         return this.value;
     }
 
-    //assigns a box number 0 through 8, with 0 in the top left and 8 in the bottom right, counting horizontally first
+    public Graph getGraph(){
+        return this.graph;
+    }
+
+    public int getIndex(){
+        return this.index;
+    }
+
+    //assigns a box number 0 through 8 (on a 9x9 board), with 0 in the top left and 8 in the bottom right, counting horizontally first
     public int getBoxNumber() {
-        return (this.posn.getRow() / 3) * 3 + (this.posn.getCol() / 3);
+        SudokuTopology topology = (this.graph == null) ? null : this.graph.getTopology();
+        int boxSize = (topology == null) ? 3 : topology.getBoxSize();
+        return (this.posn.getRow() / boxSize) * boxSize + (this.posn.getCol() / boxSize);
     }
 
     //methods
     public void changeValue(int n){
+        if (n == this.value) {
+            return;
+        }
+        int oldValue = this.value;
         this.value = n;
+
+        //keeps the candidate domains of all neighbours up to date
+        if (this.graph != null) {
+            this.graph.valueChanged(this.index, oldValue, n);
+        }
     }
 
     public void fix(){
@@ -59,27 +109,33 @@ public class Node implements Comparable<Node> {
     }
 
     public void addNeighbour(Node otherNode){
-        this.neighbours.add(otherNode);
+        this.graph.addEdge(this, otherNode);
+    }
+
+    //called by the graph when the node is added to it
+    void attach(Graph graph, int index){
+        this.graph = graph;
+        this.index = index;
     }
 
     //checks if assigning a given value to a given node will result in any conflicts
     public boolean isValidAssignment(int value) {
-        Set<Integer> invalidVals = getNeighbourVals();
         //the current node's value cannot be the same as any of its neighbours
-        return !invalidVals.contains(value);
+        return (getBlockedMask() & (1 << value)) == 0;
     }
 
-    //comparator: helps sort Nodes from the least to greatest number of possible values
+    //comparator: helps sort Nodes from the least to greatest number of possible values (ties are broken by index)
     @Override
     public int compareTo(Node other) {
-        int otherNumInvalids = other.getNeighbourVals().size();
-        int thisNumInvalids = this.getNeighbourVals().size();
-
-        if(otherNumInvalids > thisNumInvalids){
-            return 1;
-        }
-        else{
-            return -1;
+        int byCandidates = Integer.compare(this.getNumCandidates(), other.getNumCandidates());
+        if (byCandidates != 0) {
+            return byCandidates;
         }
+        return Integer.compare(this.index, other.index);
+    }
+
+    //---- helper methods ----
+    private int getBlockedMask() {
+        return (this.graph == null) ? 0 : this.graph.getBlockedMask(this.index);
     }
-}
\ No newline at end of file
+}
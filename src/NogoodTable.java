@@ -0,0 +1,156 @@
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+public class NogoodTable {
+    /*
+    A fixed-size table of refuted search states: assignments (clues included) known to have no solution, keyed by the
+    Zobrist hash of the graph's values. A search probes it before descending from a state, and adds a state once its
+    whole subtree has failed, so a dead subtree is only ever paid for once. Refutations only depend on the values,
+    not on the order they were assigned in or on which of them were clues, so one table can be shared by every solve
+    on the same board layout (e.g. the solves of a batch, or repeated solves of a board being edited).
+    Each entry is a single long in an AtomicLongArray: the top 58 bits of the hash, and in the low 6 bits the log2 of
+    the number of nodes of the refuted subtree, as the value of the entry. Entries are grouped in buckets of four;
+    a new entry replaces the least valuable entry of its bucket if that one is worth no more than it, and otherwise
+    the bucket's last slot, which is always replaceable so that the table keeps taking new entries. Reads and writes
+    are lock-free: entries are written with a compare-and-set, and a write that loses a race is simply dropped.
+    Matching 58 bits of a 64-bit hash, a false hit is astronomically unlikely but not impossible.
+     */
+    private static final int BUCKET_SIZE = 4;
+    private static final int VALUE_BITS = 6;
+    private static final long VALUE_MASK = (1L << VALUE_BITS) - 1;
+
+    //attributes
+    private final AtomicLongArray entries;
+    private final int bucketMask;
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder replacements = new LongAdder();
+
+    //constructor
+    public NogoodTable(long maxBytes) { //rounded down to a power of two, 8 bytes per entry
+        if (maxBytes < 8 * BUCKET_SIZE) {
+            throw new IllegalArgumentException("A nogood table needs at least " + 8 * BUCKET_SIZE + " bytes, got " + maxBytes);
+        }
+        int numEntries = (int) Math.min(Long.highestOneBit(maxBytes / 8), 1 << 30);
+        this.entries = new AtomicLongArray(numEntries);
+        this.bucketMask = numEntries / BUCKET_SIZE - 1;
+    }
+
+    //getters
+    public int getCapacity() {
+        return entries.length();
+    }
+
+    public long getMaxBytes() {
+        return 8L * entries.length();
+    }
+
+    public long getNumProbes() {
+        return probes.sum();
+    }
+
+    public long getNumHits() {
+        return hits.sum();
+    }
+
+    //the fraction of probes that found a refuted state
+    public double getHitRate() {
+        long numProbes = probes.sum();
+        return (numProbes == 0) ? 0 : (double) hits.sum() / numProbes;
+    }
+
+    public long getNumStores() {
+        return stores.sum();
+    }
+
+    //the stores that overwrote another entry
+    public long getNumReplacements() {
+        return replacements.sum();
+    }
+
+    //the number of occupied entries (counted by scanning the table)
+    public int countEntries() {
+        int count = 0;
+        for (int i = 0; i < entries.length(); i++) {
+            count += (entries.get(i) != 0) ? 1 : 0;
+        }
+        return count;
+    }
+
+    //methods
+    //whether the state with the given hash is known to have no solution
+    public boolean contains(long hash) {
+        probes.increment();
+        int start = bucketOf(hash);
+        for (int slot = start; slot < start + BUCKET_SIZE; slot++) {
+            if (matches(entries.get(slot), hash)) {
+                hits.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //records that the state with the given hash has no solution, found by searching a subtree of the given size
+    public void add(long hash, long subtreeNodes) {
+        long value = Math.min(63 - Long.numberOfLeadingZeros(Math.max(1, subtreeNodes)), VALUE_MASK);
+        long entry = (hash & ~VALUE_MASK) | value;
+        if (entry == 0) {
+            return; //indistinguishable from an empty slot
+        }
+
+        //chooses the slot: an empty slot, else the least valuable entry if it is worth no more, else the last slot
+        int start = bucketOf(hash);
+        int empty = -1;
+        int least = start;
+        for (int slot = start; slot < start + BUCKET_SIZE; slot++) {
+            long current = entries.get(slot);
+            if (matches(current, hash)) {
+                if ((current & VALUE_MASK) < value) {
+                    entries.compareAndSet(slot, current, entry); //keeps the larger subtree's value
+                }
+                return;
+            }
+            if (current == 0 && empty < 0) {
+                empty = slot;
+            }
+            if ((current & VALUE_MASK) < (entries.get(least) & VALUE_MASK)) {
+                least = slot;
+            }
+        }
+        int target = (empty >= 0) ? empty : ((entries.get(least) & VALUE_MASK) <= value) ? least : start + BUCKET_SIZE - 1;
+        long replaced = entries.get(target);
+        if (entries.compareAndSet(target, replaced, entry)) {
+            stores.increment();
+            if (replaced != 0) {
+                replacements.increment();
+            }
+        }
+    }
+
+    //empties the table and resets its statistics
+    public void clear() {
+        for (int i = 0; i < entries.length(); i++) {
+            entries.set(i, 0);
+        }
+        probes.reset();
+        hits.reset();
+        stores.reset();
+        replacements.reset();
+    }
+
+    public String toJson() {
+        return String.format(Locale.ROOT, "{\"capacity\":%d,\"maxBytes\":%d,\"probes\":%d,\"hits\":%d,\"hitRate\":%.4f,\"stores\":%d,\"replacements\":%d}",
+                getCapacity(), getMaxBytes(), getNumProbes(), getNumHits(), getHitRate(), getNumStores(), getNumReplacements());
+    }
+
+    //---- helper methods ----
+    private int bucketOf(long hash) {
+        return ((int) hash & bucketMask) * BUCKET_SIZE;
+    }
+
+    private static boolean matches(long entry, long hash) {
+        return entry != 0 && ((entry ^ hash) & ~VALUE_MASK) == 0;
+    }
+}
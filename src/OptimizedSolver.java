@@ -2,101 +2,159 @@ import java.util.*;
 
 public class OptimizedSolver extends Solver{
     /*
-    This solver implements a most-constrained-value heuristic via a priority queue, first searching nodes with the least
-    number of possible values. Then, a least-constraining-value heuristic is implemented: when guessing between possible
-    values for a given node, the algorithm prioritizes values which have the "least impact" on a given node's neighbours
+    This solver implements a most-constrained-value heuristic via a bucket queue (MrvScheduler), first searching nodes
+    with the least number of possible values, and among those the nodes with the most unassigned neighbours. Then, a
+    least-constraining-value heuristic is implemented: when guessing between possible values for a given node, the
+    algorithm prioritizes values which have the "least impact" on a given node's neighbours. After every assignment, a
+    Propagator forward-checks the value against the neighbours and keeps all domains arc consistent, so dead ends are
+    detected as soon as any domain is wiped out; backtracking undoes its changes via the trail.
+    On a Sudoku board, the naked and hidden singles are first filled in on a BitBoard, which finds them with a few
+    bitmask operations per cell instead of through the nodes.
      */
+    private Propagator propagator;
+    private MrvScheduler scheduler;
+    private int[][] valueOrderBuffers; //one reusable buffer of candidate values per recursion depth
+    private int[] constraintCounts; //scratch space for sorting values by their constraints
+    private NogoodTable nogoods; //refuted states, probed at every search node (null for none)
+    private long numNodes; //search nodes visited, to measure the subtrees that fail
+
     public OptimizedSolver(Graph sudokuGraph) {
         super(sudokuGraph);
     }
 
+    //skips the states the table already holds as refuted, and adds the ones this search refutes (see NogoodTable);
+    //a state is the graph's values, as the propagated domains follow from them
+    public void setNogoodTable(NogoodTable nogoods) {
+        this.nogoods = nogoods;
+    }
+
     @Override
-    public boolean solve() {
-        //adds all unassigned nodes to a priority queue
-        PriorityQueue<Node> nextNodesPQ = new PriorityQueue<>();
-        for (Node node : sudokuGraph.getAllNodes()) {
-            if (node.getValue() == 0) {
-                nextNodesPQ.add(node);
+    protected boolean search() {
+        SudokuTopology topology = sudokuGraph.getTopology();
+        if (topology != null) {
+            //fills in the naked and hidden singles with the bit-parallel kernel, so the search starts from fewer cells
+            BitBoard board = new BitBoard(topology);
+            if (!board.load(sudokuGraph) || board.propagateSingles() < 0) {
+                return false;
             }
+            board.writeTo(sudokuGraph);
         }
+        propagator = new Propagator(sudokuGraph);
+        boolean consistent = propagator.propagateAll();
+        if (consistent) {
+            consistent = searchQueue();
+        }
+        stats.addPropagations(propagator.getNumPropagations());
+        return consistent;
+    }
 
-        return solveHelper(nextNodesPQ);
+    private boolean searchQueue() {
+        //schedules all unassigned nodes, bucketed by the size of their remaining domain
+        scheduler = new MrvScheduler(sudokuGraph, propagator);
+        valueOrderBuffers = new int[scheduler.size() + 1][sudokuGraph.getMaxValue() + 1];
+        constraintCounts = new int[sudokuGraph.getMaxValue() + 1];
+        return solveHelper(0);
     }
 
     //recursive helper function to solve the Sudoku puzzle
-    private boolean solveHelper(PriorityQueue<Node> pq) {
-        if (pq.isEmpty()) {
+    private boolean solveHelper(int depth) {
+        stats.visit(depth);
+        if (isOutOfBudget()) {
+            return false; //unwinds the search
+        }
+        if (isBetterPartial(depth)) {
+            recordPartial(depth, propagator.getValues());
+        }
+        long hash = sudokuGraph.getZobristHash();
+        if (nogoods != null && nogoods.contains(hash)) {
+            return false; //the same values have been refuted before
+        }
+        long firstNode = numNodes++;
+        int index = scheduler.pollMostConstrained(); //gets the node with the least number of possible values
+        if (index < 0) {
             return true; //all nodes have been correctly assigned without any conflicts
         }
 
-        Node currentNode = pq.poll(); //gets the node with the least number of possible values
-        Set<Integer> possibleValues = currentNode.getPossibleVals();
+        Node currentNode = sudokuGraph.getNode(index);
+        int possibleValues = propagator.getDomain(index);
 
-        if (possibleValues.isEmpty()) {
+        if (possibleValues == 0) {
+            scheduler.insert(index); //restores the schedule for the caller before backtracking
             return false; //a cell with no possible values means there is a conflict
         }
 
         //sorts the possible values in order of those that are the least constraining
-        List<Integer> sortedValues = sortByLeastConstrainingValue(currentNode, possibleValues);
+        int[] sortedValues = valueOrderBuffers[depth];
+        int numValues = sortByLeastConstrainingValue(propagator, index, possibleValues, sortedValues, constraintCounts);
 
         //assigns a value to the given node which has the "least impact" on its neighbours
-        for (int value : sortedValues) {
+        for (int i = 0; i < numValues; i++) {
+            int value = sortedValues[i];
+            int mark = propagator.mark();
             currentNode.changeValue(value);
+            if (numValues > 1) {
+                stats.guess();
+            }
 
-            //updates the priority queue
-            updateNeighbours(currentNode, pq);
-
-            //recursive step
-            if (solveHelper(pq)) {
-                return true; //puzzle can be recursively solved
+            //propagates the assignment (the scheduler follows every domain change)
+            if (propagator.assign(index, value)) {
+                //recursive step
+                if (solveHelper(depth + 1)) {
+                    return true; //puzzle can be recursively solved
+                }
             }
 
-            //unassigns a value and re-updates neighbours if there is a conflict
+            //unassigns a value and undoes its propagation if there is a conflict
+            propagator.undo(mark);
             currentNode.changeValue(0);
-            updateNeighbours(currentNode, pq);
+            stats.backtrack();
+            if (isStopped()) {
+                break;
+            }
         }
 
-        return false; //no possible values for the given node: triggers backtracking
-    }
-
-    //---- helper methods ----
-    private void updateNeighbours(Node node, PriorityQueue<Node> pq) {
-        for (Node neighbor : node.getAllNeighbours()) {
-            if (neighbor.getValue() == 0) { //only updates neighbours whose values have not yet been determined
-                //re-inserts the neighbour to recalculate priority
-                pq.remove(neighbor);
-                pq.add(neighbor);
-            }
+        scheduler.insert(index); //restores the schedule for the caller before backtracking
+        if (nogoods != null && !isStopped() && numNodes - firstNode > 1) {
+            nogoods.add(hash, numNodes - firstNode); //the whole subtree has failed
         }
+        return false; //no possible values for the given node: triggers backtracking
     }
 
+    //---- helper methods, shared with ParallelSolver ----
     //counts the number of possible values removed from neighbours if a value is assigned — a measure of the "impact" on a Node's neighbours
-    private int countConstraints(Node node, int value) {
+    static int countConstraints(Propagator propagator, int index, int value) {
         int constraints = 0;
+        int valueBit = 1 << value;
 
-        for (Node neighbor : node.getAllNeighbours()) {
-            if (neighbor.getValue() == 0) { //only considers non-assigned neighbours
-                Set<Integer> neighborPossibleValues = neighbor.getPossibleVals();
-                if (neighborPossibleValues.contains(value)) {
-                    constraints++; //the number of constraints a value introduces increases if its neighbours can possibly take on that value
-                }
+        for (int neighbor : propagator.getNeighbours(index)) {
+            int neighborDomain = propagator.getDomain(neighbor);
+            if (neighborDomain != valueBit && (neighborDomain & valueBit) != 0) { //only considers undecided neighbours
+                constraints++; //the number of constraints a value introduces increases if its neighbours can possibly take on that value
             }
         }
 
         return constraints;
     }
 
-    private List<Integer> sortByLeastConstrainingValue(Node node, Set<Integer> possibleValues) {
-        List<Integer> sortedValues = new ArrayList<>(possibleValues);
-
-        sortedValues.sort((val1, val2) -> {
-            int constraintsVal1 = countConstraints(node, val1);
-            int constraintsVal2 = countConstraints(node, val2);
-            return Integer.compare(constraintsVal1, constraintsVal2); //sorts the least constraining node first
-        });
+    //writes the values of the candidate mask into sortedValues, least constraining first, and returns how many there are
+    //(constraintCounts is scratch space of the same length)
+    static int sortByLeastConstrainingValue(Propagator propagator, int index, int possibleValues, int[] sortedValues, int[] constraintCounts) {
+        int numValues = 0;
+
+        //insertion sort, keyed on the number of constraints each value introduces
+        for (int mask = possibleValues; mask != 0; mask &= mask - 1) {
+            int value = Integer.numberOfTrailingZeros(mask);
+            int constraints = countConstraints(propagator, index, value);
+            int j = numValues++;
+            while (j > 0 && constraintCounts[j - 1] > constraints) {
+                sortedValues[j] = sortedValues[j - 1];
+                constraintCounts[j] = constraintCounts[j - 1];
+                j--;
+            }
+            sortedValues[j] = value;
+            constraintCounts[j] = constraints;
+        }
 
-        return sortedValues;
+        return numValues;
     }
-
-
 }
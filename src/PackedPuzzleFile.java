@@ -0,0 +1,170 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.zip.*;
+
+public final class PackedPuzzleFile {
+    /*
+    The layout of packed puzzle files, shared by PackedPuzzleWriter and PackedPuzzleReader.
+    A file is a 32-byte header followed by fixed-size records, so record i starts at HEADER_SIZE + i * recordSize and
+    any record can be reached without an index. A record holds a puzzle and then its solution, each packed at
+    bitsPerCell bits per cell (4 for a 9x9 board, 41 bytes per board; 5 for 16x16 and 25x25 boards), with the first
+    cell of each byte in its low bits. An unsolved puzzle has a solution of zeros.
+    Header, big-endian:
+        0  int   magic "SDKP"
+        4  short format version
+        6  byte  box size
+        7  byte  bits per cell
+        8  int   record size in bytes
+        12 int   reserved (0)
+        16 long  number of records
+        24 int   CRC32 of all record bytes
+        28 int   CRC32 of header bytes 0 to 27
+     */
+    public static final int MAGIC = 0x53444B50; //"SDKP"
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+
+    private PackedPuzzleFile() {} //only holds the layout
+
+    //the fields of a file's header
+    static final class Header {
+        final SudokuTopology topology;
+        final int bitsPerCell;
+        final int boardBytes;
+        final int recordSize;
+        long numRecords;
+        int recordsCrc;
+
+        Header(SudokuTopology topology) {
+            this.topology = topology;
+            this.bitsPerCell = bitsPerCell(topology);
+            this.boardBytes = (topology.getNumCells() * bitsPerCell + 7) / 8;
+            this.recordSize = 2 * boardBytes;
+        }
+
+        //writes the header at the start of the channel
+        void write(FileChannel channel) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+            buffer.putInt(MAGIC).putShort(VERSION).put((byte) topology.getBoxSize()).put((byte) bitsPerCell)
+                    .putInt(recordSize).putInt(0).putLong(numRecords).putInt(recordsCrc);
+            buffer.putInt(crcOf(buffer.array(), 0, HEADER_SIZE - 4));
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, buffer.position());
+            }
+        }
+
+        //reads and checks the header at the start of the channel
+        static Header read(FileChannel channel) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, buffer.position()) < 0) {
+                    throw new IllegalArgumentException("Not a packed puzzle file: shorter than its " + HEADER_SIZE + "-byte header");
+                }
+            }
+            buffer.flip();
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IllegalArgumentException("Not a packed puzzle file: bad magic number");
+            }
+            if (buffer.getInt(HEADER_SIZE - 4) != crcOf(buffer.array(), 0, HEADER_SIZE - 4)) {
+                throw new IllegalArgumentException("Corrupt packed puzzle file: the header checksum does not match");
+            }
+            if (buffer.getShort(4) != VERSION) {
+                throw new IllegalArgumentException("Unsupported packed puzzle file version " + buffer.getShort(4));
+            }
+
+            Header header = new Header(SudokuTopology.forBoxSize(buffer.get(6)));
+            if (buffer.get(7) != header.bitsPerCell || buffer.getInt(8) != header.recordSize) {
+                throw new IllegalArgumentException("Corrupt packed puzzle file: unexpected record layout");
+            }
+            header.numRecords = buffer.getLong(16);
+            header.recordsCrc = buffer.getInt(24);
+            long expectedSize = HEADER_SIZE + header.numRecords * header.recordSize;
+            if (header.numRecords < 0 || channel.size() < expectedSize) {
+                throw new IllegalArgumentException("Corrupt packed puzzle file: " + header.numRecords + " records need "
+                        + expectedSize + " bytes, but the file has " + channel.size());
+            }
+            return header;
+        }
+    }
+
+    //---- packing ----
+    //the number of bits needed for the values 0 through size
+    static int bitsPerCell(SudokuTopology topology) {
+        return 32 - Integer.numberOfLeadingZeros(topology.getSize());
+    }
+
+    //packs the cell values of a board into the buffer at its position, advancing it by the board's bytes
+    static void packBoard(int[] cells, int bitsPerCell, int boardBytes, ByteBuffer into) {
+        int start = into.position();
+        if (bitsPerCell == 4) {
+            for (int cell = 0; cell < cells.length; cell += 2) {
+                int high = (cell + 1 < cells.length) ? cells[cell + 1] : 0;
+                into.put((byte) (cells[cell] | high << 4));
+            }
+        }
+        else {
+            int bits = 0; //bits waiting to be written, the oldest in the low bits
+            int numBits = 0;
+            for (int value : cells) {
+                bits |= value << numBits;
+                numBits += bitsPerCell;
+                while (numBits >= 8) {
+                    into.put((byte) bits);
+                    bits >>>= 8;
+                    numBits -= 8;
+                }
+            }
+            if (numBits > 0) {
+                into.put((byte) bits);
+            }
+        }
+        into.position(start + boardBytes);
+    }
+
+    //the value of one cell of a board packed at the given offset
+    static int unpackCell(ByteBuffer buffer, int boardOffset, int cell, int bitsPerCell) {
+        int bitOffset = cell * bitsPerCell;
+        int position = boardOffset + (bitOffset >>> 3);
+        int shift = bitOffset & 7;
+        int bits = buffer.get(position) & 0xFF;
+        if (shift + bitsPerCell > 8) {
+            bits |= (buffer.get(position + 1) & 0xFF) << 8;
+        }
+        return (bits >>> shift) & ((1 << bitsPerCell) - 1);
+    }
+
+    //unpacks every cell of a board packed at the given offset
+    static void unpackBoard(ByteBuffer buffer, int boardOffset, int bitsPerCell, int[] into) {
+        if (bitsPerCell == 4) {
+            int cell = 0;
+            if (buffer.order() == ByteOrder.LITTLE_ENDIAN) {
+                //16 cells per read, the first in the lowest bits
+                for (int position = boardOffset; cell + 16 <= into.length; cell += 16, position += 8) {
+                    long bits = buffer.getLong(position);
+                    for (int k = 0; k < 16; k++) {
+                        into[cell + k] = (int) (bits >>> (4 * k)) & 0xF;
+                    }
+                }
+            }
+            for (; cell < into.length; cell += 2) {
+                int b = buffer.get(boardOffset + (cell >>> 1));
+                into[cell] = b & 0xF;
+                if (cell + 1 < into.length) {
+                    into[cell + 1] = (b >>> 4) & 0xF;
+                }
+            }
+            return;
+        }
+        for (int cell = 0; cell < into.length; cell++) {
+            into[cell] = unpackCell(buffer, boardOffset, cell, bitsPerCell);
+        }
+    }
+
+    static int crcOf(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,131 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.*;
+import java.util.zip.*;
+
+public class PackedPuzzleReader implements Closeable {
+    /*
+    Reads a packed puzzle file (see PackedPuzzleFile for the layout) by mapping it into memory: cells are decoded on
+    demand straight from the mapped bytes, so looking up a puzzle allocates nothing and costs no parsing. Records have
+    a fixed size, so any record can be read in constant time, in any order and from several threads at once.
+    A file larger than a single mapping is mapped in chunks of whole records.
+     */
+    private static final long MAX_CHUNK_SIZE = Integer.MAX_VALUE; //the largest possible MappedByteBuffer
+
+    //attributes
+    private final FileChannel channel;
+    private final PackedPuzzleFile.Header header;
+    private final int numCells;
+    private final long recordsPerChunk;
+    private MappedByteBuffer[] chunks;
+
+    //constructor
+    public PackedPuzzleReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            this.header = PackedPuzzleFile.Header.read(channel);
+            this.numCells = header.topology.getNumCells();
+            this.recordsPerChunk = MAX_CHUNK_SIZE / header.recordSize;
+            int numChunks = (int) ((header.numRecords + recordsPerChunk - 1) / recordsPerChunk);
+            chunks = new MappedByteBuffer[numChunks];
+            for (int i = 0; i < numChunks; i++) {
+                long firstRecord = i * recordsPerChunk;
+                long numRecords = Math.min(recordsPerChunk, header.numRecords - firstRecord);
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        PackedPuzzleFile.HEADER_SIZE + firstRecord * header.recordSize, numRecords * header.recordSize);
+                chunks[i].order(ByteOrder.LITTLE_ENDIAN); //lets 9x9 boards be decoded 16 cells at a time
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    //getters
+    public SudokuTopology getTopology() {
+        return header.topology;
+    }
+
+    public long getNumRecords() {
+        return header.numRecords;
+    }
+
+    //methods
+    //the value of one cell of puzzle number index (0 for an empty cell)
+    public int getClue(long index, int cell) {
+        return PackedPuzzleFile.unpackCell(chunkOf(index), offsetOf(index), checkCell(cell), header.bitsPerCell);
+    }
+
+    //the value of one cell of the solution of puzzle number index (0 if the puzzle was stored without a solution)
+    public int getSolutionValue(long index, int cell) {
+        return PackedPuzzleFile.unpackCell(chunkOf(index), offsetOf(index) + header.boardBytes, checkCell(cell), header.bitsPerCell);
+    }
+
+    public boolean hasSolution(long index) {
+        return getSolutionValue(index, 0) != 0; //a solved board has a value in every cell
+    }
+
+    //reads the cell values of puzzle number index into an array of numCells values
+    public void readPuzzle(long index, int[] into) {
+        PackedPuzzleFile.unpackBoard(chunkOf(index), offsetOf(index), header.bitsPerCell, checkBoard(into));
+    }
+
+    public void readSolution(long index, int[] into) {
+        PackedPuzzleFile.unpackBoard(chunkOf(index), offsetOf(index) + header.boardBytes, header.bitsPerCell, checkBoard(into));
+    }
+
+    //the puzzles in file order, each as a fresh array of cell values (e.g. for BatchSolver.solveCells)
+    public Stream<int[]> puzzles() {
+        return LongStream.range(0, header.numRecords).mapToObj(index -> {
+            int[] cells = new int[numCells];
+            readPuzzle(index, cells);
+            return cells;
+        });
+    }
+
+    //recomputes the checksum of the records and compares it with the one in the header
+    public boolean verifyChecksum() {
+        CRC32 crc = new CRC32();
+        for (MappedByteBuffer chunk : chunks) {
+            crc.update(chunk.duplicate().clear());
+        }
+        return (int) crc.getValue() == header.recordsCrc;
+    }
+
+    @Override
+    public void close() throws IOException {
+        chunks = new MappedByteBuffer[0];
+        channel.close();
+    }
+
+    //---- helper methods ----
+    private ByteBuffer chunkOf(long index) {
+        if (index < 0 || index >= header.numRecords) {
+            throw new IndexOutOfBoundsException("Record " + index + " of a file with " + header.numRecords + " records");
+        }
+        return chunks[(int) (index / recordsPerChunk)];
+    }
+
+    //the offset of a record within its chunk
+    private int offsetOf(long index) {
+        return (int) (index % recordsPerChunk) * header.recordSize;
+    }
+
+    private int checkCell(int cell) {
+        if (cell < 0 || cell >= numCells) {
+            throw new IndexOutOfBoundsException("Cell " + cell + " of a board with " + numCells + " cells");
+        }
+        return cell;
+    }
+
+    private int[] checkBoard(int[] into) {
+        if (into.length != numCells) {
+            throw new IllegalArgumentException("Expected an array of " + numCells + " cells, got " + into.length);
+        }
+        return into;
+    }
+}
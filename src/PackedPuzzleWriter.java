@@ -0,0 +1,155 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.zip.*;
+
+public class PackedPuzzleWriter implements Closeable {
+    /*
+    Writes puzzles and their solutions to a packed puzzle file (see PackedPuzzleFile for the layout).
+    Records are packed into a large direct buffer and written to the file a buffer at a time; the checksum is kept up
+    to date as the buffer is written, and the header is rewritten on every flush, so the file is always readable up
+    to its last flush. A writer can also reopen an existing file to append further batches to it.
+     */
+    private static final int BUFFER_SIZE = 1 << 20; //bytes written to the file at once
+
+    //attributes
+    private final FileChannel channel;
+    private final PackedPuzzleFile.Header header;
+    private final ByteBuffer buffer;
+    private final CRC32 crc = new CRC32();
+    private final int[] clues; //reused when writing graphs
+    private final int[] solution;
+
+    //constructors
+    public PackedPuzzleWriter(Path path) throws IOException { //writes 9x9 boards, replacing the file if it exists
+        this(path, 3);
+    }
+
+    public PackedPuzzleWriter(Path path, int boxSize) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE), new PackedPuzzleFile.Header(SudokuTopology.forBoxSize(boxSize)));
+    }
+
+    private PackedPuzzleWriter(FileChannel channel, PackedPuzzleFile.Header header) throws IOException {
+        this.channel = channel;
+        this.header = header;
+        int numCells = header.topology.getNumCells();
+        this.buffer = ByteBuffer.allocateDirect(Math.max(1, BUFFER_SIZE / header.recordSize) * header.recordSize);
+        this.clues = new int[numCells];
+        this.solution = new int[numCells];
+        if (header.numRecords == 0) {
+            header.write(channel);
+        }
+    }
+
+    //reopens a packed puzzle file to add records after its existing ones (whose checksum is verified first)
+    public static PackedPuzzleWriter append(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            PackedPuzzleFile.Header header = PackedPuzzleFile.Header.read(channel);
+            PackedPuzzleWriter writer = new PackedPuzzleWriter(channel, header);
+            long end = PackedPuzzleFile.HEADER_SIZE + header.numRecords * header.recordSize;
+            for (long position = PackedPuzzleFile.HEADER_SIZE; position < end; ) {
+                writer.buffer.clear().limit((int) Math.min(writer.buffer.capacity(), end - position));
+                while (writer.buffer.hasRemaining()) {
+                    position += channel.read(writer.buffer, position);
+                }
+                writer.crc.update(writer.buffer.flip());
+            }
+            writer.buffer.clear();
+            if ((int) writer.crc.getValue() != header.recordsCrc) {
+                throw new IllegalArgumentException("Corrupt packed puzzle file: the record checksum does not match");
+            }
+            channel.truncate(end); //drops anything written after the last flush
+            return writer;
+        }
+        catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    //getters
+    public SudokuTopology getTopology() {
+        return header.topology;
+    }
+
+    //the number of records written so far, including those still buffered
+    public long getNumRecords() {
+        return header.numRecords + buffer.position() / header.recordSize;
+    }
+
+    //methods
+    //adds a puzzle and its solution (null, or all zeros, if it has none), each given as cell values row by row
+    public void write(int[] puzzle, int[] solution) throws IOException {
+        int numCells = header.topology.getNumCells();
+        if (puzzle.length != numCells || solution != null && solution.length != numCells) {
+            throw new IllegalArgumentException("Expected boards of " + numCells + " cells");
+        }
+        if (!buffer.hasRemaining()) {
+            writeBuffer();
+        }
+        PackedPuzzleFile.packBoard(puzzle, header.bitsPerCell, header.boardBytes, buffer);
+        if (solution == null) {
+            for (int i = 0; i < header.boardBytes; i++) {
+                buffer.put((byte) 0);
+            }
+        }
+        else {
+            PackedPuzzleFile.packBoard(solution, header.bitsPerCell, header.boardBytes, buffer);
+        }
+    }
+
+    //adds a graph constructed from a board: its fixed nodes are the puzzle, and its values the solution if every node is filled
+    public void write(Graph graph) throws IOException {
+        for (Node node : graph.getAllNodes()) {
+            clues[node.getIndex()] = node.isFixed() ? node.getValue() : 0;
+            solution[node.getIndex()] = node.getValue();
+        }
+        write(clues, graph.isFilled() ? solution : null);
+    }
+
+    //adds the board of a batch result, e.g. batchSolver.solveCells(boards, true, writer::writeResult)
+    public void writeResult(BatchSolver.Result result) {
+        try {
+            write(result.getGraph());
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //writes the buffered records and updates the header, so that readers see every record written so far
+    public void flush() throws IOException {
+        writeBuffer();
+        header.write(channel);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        }
+        finally {
+            channel.close();
+        }
+    }
+
+    //---- helper methods ----
+    private void writeBuffer() throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        int numRecords = buffer.position() / header.recordSize;
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        long position = PackedPuzzleFile.HEADER_SIZE + header.numRecords * header.recordSize;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        buffer.clear();
+        header.numRecords += numRecords;
+        header.recordsCrc = (int) crc.getValue();
+    }
+}
@@ -0,0 +1,244 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+public class ParallelSolver extends Solver {
+    /*
+    Searches a single puzzle on several cores. The search tree is split at its shallow branch points: down to
+    splitDepth, every value of the most constrained node becomes a fork-join task holding its own copy of the
+    Propagator's domains (a single int array), so tasks share no mutable state and idle workers steal subtrees from
+    busy ones. Below splitDepth, each task runs the same search as OptimizedSolver on its copy: the most constrained
+    node first, its least constraining values first, undoing via the trail. Every task also gets a copy of its
+    parent's MrvScheduler, so the tasks together explore the tree in the same order as the sequential search would,
+    and a single core is no slower than OptimizedSolver. Before splitting, the naked and hidden singles of a Sudoku
+    board are assigned with the bit-parallel BitBoard kernel.
+    The Graph's nodes are only written once, when a solution has been found; the first task to find one raises a flag
+    that makes every other task give up at its next step. Counting solutions runs the same search, raising the flag
+    only once the cap has been reached, or once the budget runs out: each task charges its nodes against the budget
+    in batches of up to BUDGET_BATCH (smaller near the node limit), so that the tasks rarely touch the shared counter.
+    Called from a task of a ForkJoinPool (e.g. inside a BatchSolver), the search forks into that pool rather than
+    blocking its worker on another one.
+     */
+    public static final int DEFAULT_SPLIT_DEPTH = 3;
+    private static final int BUDGET_BATCH = 256; //search nodes a task visits between two charges to the budget
+
+    private final ForkJoinPool pool; //null to use the current pool, or the common pool outside of one
+    private final int splitDepth;
+    private final AtomicReference<Propagator> solution = new AtomicReference<>();
+    private final AtomicLong numSolutions = new AtomicLong();
+    private long solutionCap;
+    private volatile boolean finished = false;
+
+    public ParallelSolver(Graph sudokuGraph) {
+        this(sudokuGraph, null, DEFAULT_SPLIT_DEPTH);
+    }
+
+    public ParallelSolver(Graph sudokuGraph, ForkJoinPool pool, int splitDepth) {
+        super(sudokuGraph);
+        if (splitDepth < 0) {
+            throw new IllegalArgumentException("The split depth must be non-negative, got " + splitDepth);
+        }
+        this.pool = pool;
+        this.splitDepth = splitDepth;
+    }
+
+    @Override
+    protected boolean search() {
+        searchAll(1);
+        Propagator found = solution.get();
+        if (found == null) {
+            return false;
+        }
+        found.writeTo(sudokuGraph);
+        return true;
+    }
+
+    //counts the completions of the graph's current values in parallel, without changing the graph
+    @Override
+    public long countSolutions(long cap) {
+        if (cap < 1) {
+            throw new IllegalArgumentException("The solution cap must be at least 1, got " + cap);
+        }
+        startBudget();
+        searchAll(cap);
+        long count = Math.min(numSolutions.get(), cap);
+        finishBudget(count > 0 && !isStopped());
+        return count;
+    }
+
+    //searches the whole tree from the graph's current values, until cap solutions have been found
+    private void searchAll(long cap) {
+        solution.set(null);
+        numSolutions.set(0);
+        solutionCap = cap;
+        finished = false;
+        if (isStopped()) {
+            return; //cancelled before it started
+        }
+
+        Propagator root = new Propagator(sudokuGraph);
+        boolean consistent = root.propagateAll() && assignSingles(root);
+        stats.addPropagations(root.getNumPropagations());
+        if (!consistent) {
+            return;
+        }
+        SearchTask task = new SearchTask(root, new MrvScheduler(root), 0);
+        if (pool != null) {
+            pool.invoke(task);
+        }
+        else if (ForkJoinTask.inForkJoinPool()) {
+            task.invoke();
+        }
+        else {
+            ForkJoinPool.commonPool().invoke(task);
+        }
+    }
+
+    //a subtree of the search, rooted at the state held by its own propagator
+    private final class SearchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Propagator propagator;
+        private final MrvScheduler scheduler; //follows the propagator's domain changes
+        private final int depth;
+        private final SolverStats taskStats = new SolverStats(stats.isEnabled());
+        private int[][] valueOrderBuffers; //one reusable buffer of candidate values per level below the task's root
+        private int[] constraintCounts;
+        private int unchargedNodes = 0; //nodes visited since the last charge to the budget
+        private int budgetBatch = getBudgetBatch(BUDGET_BATCH);
+
+        private SearchTask(Propagator propagator, MrvScheduler scheduler, int depth) {
+            this.propagator = propagator;
+            this.scheduler = scheduler;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (depth < splitDepth) {
+                split();
+            }
+            else {
+                valueOrderBuffers = new int[scheduler.size() + 1][sudokuGraph.getMaxValue() + 1];
+                constraintCounts = new int[sudokuGraph.getMaxValue() + 1];
+                searchFrom(depth);
+            }
+            if (unchargedNodes > 0 && isOutOfBudget(unchargedNodes)) {
+                finished = true; //charges the nodes of the last incomplete batch
+            }
+            taskStats.addPropagations(propagator.getNumPropagations());
+            synchronized (stats) {
+                stats.add(taskStats);
+            }
+        }
+
+        //forks one task per value of the most constrained node, each on its own copy of the domains and the schedule
+        private void split() {
+            if (isFinished(depth)) {
+                return;
+            }
+            taskStats.visit(depth);
+            int index = scheduler.pollMostConstrained();
+            if (index < 0) {
+                reportSolution(propagator);
+                return;
+            }
+
+            //the least constraining value's subtree is searched first, on this thread
+            int[] values = new int[sudokuGraph.getMaxValue() + 1];
+            int numValues = OptimizedSolver.sortByLeastConstrainingValue(propagator, index, propagator.getDomain(index),
+                    values, new int[values.length]);
+            List<SearchTask> subtasks = new ArrayList<>(numValues);
+            for (int i = 0; i < numValues; i++) {
+                Propagator child = propagator.copy();
+                MrvScheduler childScheduler = scheduler.copy(child);
+                if (child.assign(index, values[i])) {
+                    subtasks.add(new SearchTask(child, childScheduler, depth + 1));
+                }
+                if (numValues > 1) {
+                    taskStats.guess();
+                }
+            }
+            invokeAll(subtasks);
+        }
+
+        //sequential depth-first search on this task's propagator, returning true once the search should stop
+        private boolean searchFrom(int currentDepth) {
+            if (isFinished(currentDepth)) {
+                return true; //another task has already found enough solutions, or the budget has run out
+            }
+            taskStats.visit(currentDepth);
+            int index = scheduler.pollMostConstrained();
+            if (index < 0) {
+                return reportSolution(propagator);
+            }
+
+            int[] sortedValues = valueOrderBuffers[currentDepth - depth];
+            int numValues = OptimizedSolver.sortByLeastConstrainingValue(propagator, index, propagator.getDomain(index),
+                    sortedValues, constraintCounts);
+            for (int i = 0; i < numValues; i++) {
+                int mark = propagator.mark();
+                if (numValues > 1) {
+                    taskStats.guess();
+                }
+                if (propagator.assign(index, sortedValues[i]) && searchFrom(currentDepth + 1)) {
+                    return true;
+                }
+                propagator.undo(mark);
+                taskStats.backtrack();
+            }
+            scheduler.insert(index); //restores the schedule for the caller before backtracking
+            return false;
+        }
+
+        //called once per search node: charges the node to the budget, and records the propagator's values if the
+        //search has never been this deep
+        private boolean isFinished(int currentDepth) {
+            if (++unchargedNodes >= budgetBatch) {
+                if (isOutOfBudget(unchargedNodes)) {
+                    finished = true; //stops every other task
+                }
+                unchargedNodes = 0;
+                budgetBatch = getBudgetBatch(BUDGET_BATCH);
+            }
+            if (!finished && isBetterPartial(currentDepth)) {
+                recordPartial(currentDepth, propagator.getValues());
+            }
+            return finished;
+        }
+    }
+
+    //---- helper methods ----
+    //assigns the naked and hidden singles found on the graph's values to the root domains, without touching the graph
+    //(they follow from the values, so they change neither the solutions nor their number); false if there are none
+    private boolean assignSingles(Propagator root) {
+        SudokuTopology topology = sudokuGraph.getTopology();
+        if (topology == null) {
+            return true;
+        }
+        BitBoard board = new BitBoard(topology);
+        if (!board.load(sudokuGraph) || board.propagateSingles() < 0) {
+            return false;
+        }
+        for (int cell = 0; cell < topology.getNumCells(); cell++) {
+            int value = board.getValue(cell);
+            if (value != 0 && !root.assign(cell, value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //records a solution, returning true if it was the last one needed
+    private boolean reportSolution(Propagator propagator) {
+        long count = numSolutions.incrementAndGet();
+        if (count == 1) {
+            solution.set(propagator.copy());
+        }
+        if (count >= solutionCap) {
+            finished = true; //cancels every other task
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,266 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+public class PortfolioSolver extends Solver {
+    /*
+    Races several strategies (different solvers, or variants of one) on the same puzzle, as no single strategy is the
+    fastest on every board and the slowest boards of one are often easy for another. Each strategy solves its own
+    copy of the graph on its own thread; the first to reach an answer (a solution, or proof that there is none) wins,
+    its values are copied back into the graph, and the others are cancelled through a token shared by the race.
+    The strategies and their win statistics live in a Portfolio, which is meant to be shared by many PortfolioSolvers
+    (e.g. every board of a BatchSolver). The strategy that has won most often runs on the calling thread and the
+    others on the portfolio's threads. With a maximum number of racers, only the strategies with the best win rates
+    race once every strategy has raced a few times; every so often all of them race again, so that a dropped strategy
+    comes back if it starts winning.
+    Each racer gets the whole remaining budget of the solve, and the statistics kept are those of the winner.
+     */
+    private static final int WARM_UP_RACES = 16; //races in which every strategy runs, before any is dropped
+    private static final int EXPLORATION_INTERVAL = 32; //every strategy also runs in every 32nd race
+
+    //a named way of solving a graph, with its record in the races of its portfolio
+    public static final class Strategy {
+        private final String name;
+        private final Function<Graph, Solver> solverFactory;
+        private final int order; //the position in which it was added, which breaks ties in the ranking
+        private final AtomicLong numRaces = new AtomicLong();
+        private final AtomicLong numWins = new AtomicLong();
+        private final AtomicLong winNanos = new AtomicLong(); //the total time taken by the races it won
+
+        private Strategy(String name, Function<Graph, Solver> solverFactory, int order) {
+            this.name = name;
+            this.solverFactory = solverFactory;
+            this.order = order;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getNumRaces() {
+            return numRaces.get();
+        }
+
+        public long getNumWins() {
+            return numWins.get();
+        }
+
+        //the fraction of its races won, smoothed so that a strategy with few races is neither favoured nor written off
+        public double getWinRate() {
+            return (numWins.get() + 1.0) / (numRaces.get() + 2.0);
+        }
+
+        //the mean time taken by the races it won, in nanoseconds
+        public double getMeanWinNanos() {
+            long wins = numWins.get();
+            return (wins == 0) ? 0 : (double) winNanos.get() / wins;
+        }
+
+        private void recordWin(long nanos) {
+            numWins.incrementAndGet();
+            winNanos.addAndGet(nanos);
+        }
+    }
+
+    //the strategies raced by PortfolioSolvers, their statistics, and the threads the races run on
+    public static final class Portfolio {
+        private final List<Strategy> strategies = new CopyOnWriteArrayList<>();
+        private final AtomicLong numRaces = new AtomicLong();
+        private final ExecutorService executor; //racers other than the leader; idle threads end after a minute
+        private volatile int maxRacers = Integer.MAX_VALUE;
+
+        public Portfolio() {
+            this.executor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "portfolio-racer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        //dancing links, MRV search with propagation, and the same after the logical deductions
+        public static Portfolio standard() {
+            Portfolio portfolio = new Portfolio();
+            portfolio.addStrategy("dlx", DLXSolver::new);
+            portfolio.addStrategy("optimized", OptimizedSolver::new);
+            portfolio.addStrategy("deductions+optimized", graph -> {
+                Solver solver = new OptimizedSolver(graph);
+                solver.setDeductions(DeductionPipeline.standard());
+                return solver;
+            });
+            return portfolio;
+        }
+
+        public void addStrategy(String name, Function<Graph, Solver> solverFactory) {
+            strategies.add(new Strategy(name, solverFactory, strategies.size()));
+        }
+
+        //the strategies in the order they were added
+        public List<Strategy> getStrategies() {
+            return Collections.unmodifiableList(strategies);
+        }
+
+        //the strategies from the highest win rate to the lowest
+        public List<Strategy> getRanking() {
+            List<Strategy> ranking = new ArrayList<>(strategies);
+            ranking.sort(Comparator.comparingDouble(Strategy::getWinRate).reversed().thenComparingInt(strategy -> strategy.order));
+            return ranking;
+        }
+
+        public long getNumRaces() {
+            return numRaces.get();
+        }
+
+        //races at most the given number of strategies at once (the best ranked), outside of the warm-up and exploration races
+        public void setMaxRacers(int maxRacers) {
+            if (maxRacers < 1) {
+                throw new IllegalArgumentException("At least one strategy has to race, got " + maxRacers);
+            }
+            this.maxRacers = maxRacers;
+        }
+
+        public String statsToJson() {
+            StringBuilder json = new StringBuilder();
+            json.append("{\"races\":").append(numRaces.get()).append(",\"strategies\":[");
+            List<Strategy> ranking = getRanking();
+            for (int i = 0; i < ranking.size(); i++) {
+                Strategy strategy = ranking.get(i);
+                json.append(i == 0 ? "" : ",").append(String.format(Locale.ROOT,
+                        "{\"name\":\"%s\",\"races\":%d,\"wins\":%d,\"winRate\":%.4f,\"meanWinNanos\":%.0f}",
+                        strategy.getName(), strategy.getNumRaces(), strategy.getNumWins(), strategy.getWinRate(), strategy.getMeanWinNanos()));
+            }
+            return json.append("]}").toString();
+        }
+
+        //the strategies of the next race, the leader first
+        private List<Strategy> selectRacers() {
+            long race = numRaces.incrementAndGet();
+            List<Strategy> racers = getRanking();
+            boolean everyStrategy = race <= WARM_UP_RACES || race % EXPLORATION_INTERVAL == 0;
+            if (!everyStrategy && racers.size() > maxRacers) {
+                racers = racers.subList(0, maxRacers);
+            }
+            for (Strategy strategy : racers) {
+                strategy.numRaces.incrementAndGet();
+            }
+            return racers;
+        }
+    }
+
+    //attributes
+    private final Portfolio portfolio;
+    private Strategy winner;
+
+    //constructor
+    public PortfolioSolver(Graph sudokuGraph, Portfolio portfolio) {
+        super(sudokuGraph);
+        this.portfolio = portfolio;
+    }
+
+    //getters
+    public Portfolio getPortfolio() {
+        return portfolio;
+    }
+
+    //the strategy that answered the last solve, or null if every racer was stopped
+    public Strategy getWinner() {
+        return winner;
+    }
+
+    @Override
+    protected boolean search() {
+        List<Strategy> racers = portfolio.selectRacers();
+        if (racers.isEmpty()) {
+            throw new IllegalStateException("The portfolio has no strategies");
+        }
+        return new Race(racers).run();
+    }
+
+    //one solve of the puzzle by every racer, each on its own copy of the graph
+    private final class Race {
+        private final List<Strategy> racers;
+        private final Graph[] graphs;
+        private final Solver[] solvers;
+        private final CancellationToken token = new CancellationToken(getCancellationToken()); //stops the losers
+        private final AtomicInteger winnerIndex = new AtomicInteger(-1);
+        private final AtomicInteger numRunning;
+        private final CountDownLatch finished = new CountDownLatch(1); //released by the winner, or by the last racer
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        private final long startTime = System.nanoTime();
+
+        private Race(List<Strategy> racers) {
+            this.racers = racers;
+            this.graphs = new Graph[racers.size()];
+            this.solvers = new Solver[racers.size()];
+            this.numRunning = new AtomicInteger(racers.size());
+            for (int i = 0; i < racers.size(); i++) {
+                graphs[i] = sudokuGraph.copy();
+                solvers[i] = racers.get(i).solverFactory.apply(graphs[i]);
+                passBudgetTo(solvers[i], token);
+            }
+        }
+
+        private boolean run() {
+            for (int i = 1; i < solvers.length; i++) {
+                int racer = i;
+                portfolio.executor.execute(() -> runRacer(racer));
+            }
+            runRacer(0);
+            try {
+                finished.await();
+            }
+            catch (InterruptedException e) {
+                token.cancel();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while racing the strategies of a portfolio", e);
+            }
+
+            int index = winnerIndex.get();
+            if (index < 0) {
+                //every racer has been stopped by the budget (or has failed): nothing is running any more
+                winner = null;
+                if (failure.get() != null) {
+                    throw new IllegalStateException("A strategy of the portfolio failed", failure.get());
+                }
+                for (Solver solver : solvers) {
+                    stats.add(solver.getStats());
+                    adoptOutcome(solver, true);
+                }
+                return false;
+            }
+
+            winner = racers.get(index);
+            stats.add(solvers[index].getStats());
+            adoptOutcome(solvers[index], false);
+            if (solvers[index].getStatus() != SolveStatus.SOLVED) {
+                return false; //the winner proved that there is no solution
+            }
+            for (Node node : graphs[index].getAllNodes()) {
+                Node original = sudokuGraph.getNode(node.getIndex());
+                if (original.getValue() != node.getValue()) {
+                    original.changeValue(node.getValue());
+                }
+            }
+            return true;
+        }
+
+        private void runRacer(int index) {
+            try {
+                solvers[index].solve();
+                if (!solvers[index].getStatus().isStopped() && winnerIndex.compareAndSet(-1, index)) {
+                    racers.get(index).recordWin(System.nanoTime() - startTime);
+                    token.cancel();
+                    finished.countDown();
+                }
+            }
+            catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            }
+            finally {
+                if (numRunning.decrementAndGet() == 0) {
+                    finished.countDown();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+import java.util.*;
+
+public class Propagator {
+    /*
+    Maintains an explicit candidate domain (a bitmask, bit v for value v) for every node of a graph, and keeps the
+    domains arc consistent after each assignment. Every edge is a "not equal" constraint, so a value can only lose
+    its support on an arc once the domain at the other end has shrunk to that single value: AC-3 therefore reduces
+    to propagating singleton domains to their neighbours, which in turn may become singletons.
+    Every domain change is recorded on a trail, so backtracking to an earlier mark undoes only the changes made since.
+     */
+
+    //notified of every domain change, both when propagating and when undoing
+    public interface DomainListener {
+        void domainChanged(int index, int oldDomain, int newDomain);
+    }
+
+    //attributes
+    private final int numNodes;
+    private final int[][] adjacency;
+    private final int[] domains;
+    private DomainListener listener;
+
+    //the trail stores the previous domain of a node every time that domain changes
+    private int[] trailNodes;
+    private int[] trailDomains;
+    private int trailSize = 0;
+
+    //work queue of nodes whose domain has become a singleton which still has to be removed from their neighbours
+    private final int[] queue;
+    private int queueHead = 0;
+    private int queueTail = 0;
+
+    private long numPropagations = 0;
+
+    //constructors
+    public Propagator(Graph graph) { //starts with the domains the graph's node values allow
+        this.numNodes = graph.getNumVertices();
+        this.adjacency = new int[numNodes][];
+        this.domains = new int[numNodes];
+        this.queue = new int[numNodes];
+        this.trailNodes = new int[4 * numNodes];
+        this.trailDomains = new int[4 * numNodes];
+
+        for (int i = 0; i < numNodes; i++) {
+            int[] neighbours = graph.getNeighbourIndices(i);
+            int degree = graph.getDegree(i);
+            adjacency[i] = (neighbours.length == degree) ? neighbours : Arrays.copyOf(neighbours, degree);
+
+            Node node = graph.getNode(i);
+            domains[i] = (node.getValue() != 0) ? (1 << node.getValue()) : node.getCandidateMask();
+        }
+    }
+
+    private Propagator(Propagator other) { //copies the current domains; the copy starts with an empty trail
+        this.numNodes = other.numNodes;
+        this.adjacency = other.adjacency;
+        this.domains = other.domains.clone();
+        this.queue = new int[numNodes];
+        this.trailNodes = new int[other.trailNodes.length];
+        this.trailDomains = new int[other.trailDomains.length];
+    }
+
+    //getters
+    public int getNumNodes() {
+        return numNodes;
+    }
+
+    public int getDomain(int index) {
+        return domains[index];
+    }
+
+    public int getDomainSize(int index) {
+        return Integer.bitCount(domains[index]);
+    }
+
+    public boolean isDecided(int index) {
+        return Integer.bitCount(domains[index]) == 1;
+    }
+
+    //the value of a node whose domain is a singleton, or 0 if it is still undecided
+    public int getValue(int index) {
+        int domain = domains[index];
+        return (domain != 0 && (domain & (domain - 1)) == 0) ? Integer.numberOfTrailingZeros(domain) : 0;
+    }
+
+    public int[] getNeighbours(int index) {
+        return adjacency[index];
+    }
+
+    //the total number of values removed from domains so far (undone removals included)
+    public long getNumPropagations() {
+        return numPropagations;
+    }
+
+    public void setListener(DomainListener listener) {
+        this.listener = listener;
+    }
+
+    //methods
+    //propagates every singleton domain; used once to establish consistency before the search starts
+    public boolean propagateAll() {
+        for (int i = 0; i < numNodes; i++) {
+            if (isDecided(i)) {
+                queue[queueTail++] = i;
+            }
+            else if (domains[i] == 0) {
+                return false;
+            }
+        }
+        return propagate();
+    }
+
+    //assigns a value to a node and propagates it: false means some domain was wiped out
+    public boolean assign(int index, int value) {
+        int bit = 1 << value;
+        int domain = domains[index];
+        if ((domain & bit) == 0) {
+            return false;
+        }
+        if (domain == bit) {
+            return true; //already decided, and its value has already been propagated
+        }
+        setDomain(index, bit);
+        queue[queueTail++] = index;
+        return propagate();
+    }
+
+    //removes values from the domain of a node and propagates the result: false means the domain was wiped out
+    public boolean remove(int index, int valueMask) {
+        int domain = domains[index];
+        int newDomain = domain & ~valueMask;
+        if (newDomain == domain) {
+            return true;
+        }
+        setDomain(index, newDomain);
+        if (newDomain == 0) {
+            return false;
+        }
+        if ((newDomain & (newDomain - 1)) == 0) {
+            queue[queueTail++] = index;
+            return propagate();
+        }
+        return true;
+    }
+
+    //marks the current state, to be restored later with undo
+    public int mark() {
+        return trailSize;
+    }
+
+    //restores every domain that has changed since the given mark, most recent change first
+    public void undo(int mark) {
+        while (trailSize > mark) {
+            trailSize--;
+            int index = trailNodes[trailSize];
+            int oldDomain = domains[index];
+            domains[index] = trailDomains[trailSize];
+            if (listener != null) {
+                listener.domainChanged(index, oldDomain, domains[index]);
+            }
+        }
+    }
+
+    //the values of the decided nodes, indexed by node (0 for an undecided node)
+    public int[] getValues() {
+        int[] values = new int[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            values[i] = getValue(i);
+        }
+        return values;
+    }
+
+    //creates an independent copy of the current domains, which can be searched without touching this propagator
+    public Propagator copy() {
+        return new Propagator(this);
+    }
+
+    //writes the values of all decided nodes into the graph the propagator was created from
+    public void writeTo(Graph graph) {
+        for (int i = 0; i < numNodes; i++) {
+            int value = getValue(i);
+            if (value != 0) {
+                graph.getNode(i).changeValue(value);
+            }
+        }
+    }
+
+    //---- helper methods ----
+    //removes the value of each queued singleton from its neighbours, until no more singletons appear
+    private boolean propagate() {
+        while (queueHead < queueTail) {
+            int index = queue[queueHead++];
+            int bit = domains[index];
+            int[] neighbours = adjacency[index];
+
+            for (int i = 0; i < neighbours.length; i++) {
+                int neighbour = neighbours[i];
+                int domain = domains[neighbour];
+                if ((domain & bit) == 0) {
+                    continue;
+                }
+                int newDomain = domain & ~bit;
+                setDomain(neighbour, newDomain);
+                if (newDomain == 0) {
+                    queueHead = queueTail = 0;
+                    return false; //a wiped-out domain means the current assignments cannot be completed
+                }
+                if ((newDomain & (newDomain - 1)) == 0) {
+                    queue[queueTail++] = neighbour;
+                }
+            }
+        }
+        queueHead = queueTail = 0;
+        return true;
+    }
+
+    private void setDomain(int index, int newDomain) {
+        if (trailSize == trailNodes.length) {
+            trailNodes = Arrays.copyOf(trailNodes, 2 * trailSize);
+            trailDomains = Arrays.copyOf(trailDomains, 2 * trailSize);
+        }
+        int oldDomain = domains[index];
+        trailNodes[trailSize] = index;
+        trailDomains[trailSize] = oldDomain;
+        trailSize++;
+        domains[index] = newDomain;
+        numPropagations++;
+        if (listener != null) {
+            listener.domainChanged(index, oldDomain, newDomain);
+        }
+    }
+}
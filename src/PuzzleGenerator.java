@@ -0,0 +1,384 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+public class PuzzleGenerator {
+    /*
+    Generates Sudoku puzzles with a unique solution, a target number of clues and, optionally, a target grade.
+    Each puzzle starts from a random complete grid: the diagonal boxes (which share no row or column) are filled with
+    random permutations, a DLXSolver completes the grid, and its rows, columns, bands and stacks are shuffled. Clues
+    are then removed one at a time in a random order (or in symmetric pairs), and a removal is only kept if the puzzle
+    still has a single solution. Most removals are confirmed by logical deductions alone; only when the deductions get
+    stuck is the solution counted, stopping at 2.
+    Puzzle i of a run depends only on the run's seed and on i, so the same seed reproduces the same puzzles whatever
+    the number of threads. Runs are generated in parallel and delivered in index order through a bounded window, and
+    are written in the one-line format read by SudokuParser.
+    Usage: java PuzzleGenerator count clues [seed] [symmetry] [grade] [boxSize] — the puzzles are printed to stdout.
+     */
+    public static final int DEFAULT_MAX_ATTEMPTS = 100;
+    private static final DeductionPipeline GRADER = DeductionPipeline.standard();
+    private static final DeductionPipeline SINGLES = new DeductionPipeline(
+            List.of(LogicalTechnique.NAKED_SINGLES, LogicalTechnique.HIDDEN_SINGLES));
+
+    //the cells whose clues are removed together
+    public enum Symmetry {
+        NONE {
+            @Override
+            int partnerOf(int cell, SudokuTopology topology) {
+                return cell;
+            }
+        },
+        ROTATIONAL { //half-turn symmetry about the centre of the board
+            @Override
+            int partnerOf(int cell, SudokuTopology topology) {
+                return topology.getNumCells() - 1 - cell;
+            }
+        },
+        MIRROR { //reflection about the vertical centre line
+            @Override
+            int partnerOf(int cell, SudokuTopology topology) {
+                int size = topology.getSize();
+                return (cell / size) * size + (size - 1 - cell % size);
+            }
+        };
+
+        //the cell whose clue is removed along with the given one (the cell itself if it has no partner)
+        abstract int partnerOf(int cell, SudokuTopology topology);
+    }
+
+    //a generated puzzle, along with its solution
+    public static final class Puzzle {
+        private final long index;
+        private final int[] clues;
+        private final int[] solution;
+        private final int numClues;
+        private final DeductionPipeline.Grade grade;
+        private final int attempts;
+
+        private Puzzle(long index, int[] clues, int[] solution, int numClues, DeductionPipeline.Grade grade, int attempts) {
+            this.index = index;
+            this.clues = clues;
+            this.solution = solution;
+            this.numClues = numClues;
+            this.grade = grade;
+            this.attempts = attempts;
+        }
+
+        //the position of the puzzle in its run, starting at 0
+        public long getIndex() {
+            return index;
+        }
+
+        //the cell values of the puzzle, row by row (0 for an empty cell)
+        public int[] getClues() {
+            return clues.clone();
+        }
+
+        public int[] getSolution() {
+            return solution.clone();
+        }
+
+        public int getNumClues() {
+            return numClues;
+        }
+
+        //how hard the puzzle is for the standard deduction pipeline
+        public DeductionPipeline.Grade getGrade() {
+            return grade;
+        }
+
+        //the number of grids tried before one met the targets
+        public int getAttempts() {
+            return attempts;
+        }
+
+        //the puzzle in the one-line format read by SudokuParser
+        public String toLine() {
+            return SudokuParser.toSudokuLine(clues);
+        }
+    }
+
+    //attributes
+    private final SudokuTopology topology;
+    private final int targetClues; //removal stops once the puzzle is down to this many clues
+    private final Symmetry symmetry;
+    private DeductionPipeline.Grade targetGrade = null; //null for puzzles of any grade
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private Function<Graph, Solver> counterFactory = DLXSolver::new; //counts solutions when the deductions get stuck
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    //constructors
+    public PuzzleGenerator(int targetClues) { //9x9 puzzles, removing clues in a random order
+        this(3, targetClues, Symmetry.NONE);
+    }
+
+    public PuzzleGenerator(int boxSize, int targetClues, Symmetry symmetry) {
+        this.topology = SudokuTopology.forBoxSize(boxSize);
+        if (targetClues < 0 || targetClues > topology.getNumCells()) {
+            throw new IllegalArgumentException("The target must be between 0 and " + topology.getNumCells() + " clues, got " + targetClues);
+        }
+        this.targetClues = targetClues;
+        this.symmetry = symmetry;
+    }
+
+    //getters
+    public SudokuTopology getTopology() {
+        return topology;
+    }
+
+    public int getTargetClues() {
+        return targetClues;
+    }
+
+    public Symmetry getSymmetry() {
+        return symmetry;
+    }
+
+    public DeductionPipeline.Grade getTargetGrade() {
+        return targetGrade;
+    }
+
+    //setters
+    //only keeps puzzles of the given grade (null for any grade); removals that would make a puzzle harder are undone
+    public void setTargetGrade(DeductionPipeline.Grade targetGrade) {
+        if (targetGrade == DeductionPipeline.Grade.INVALID) {
+            throw new IllegalArgumentException("Generated puzzles always have a solution");
+        }
+        this.targetGrade = targetGrade;
+    }
+
+    //the number of grids tried for each puzzle before giving up on the targets
+    public void setMaxAttempts(int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("At least one attempt is needed, got " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+    }
+
+    //the solver whose countSolutions confirms uniqueness when the deductions get stuck (DLXSolver by default)
+    public void setCounterFactory(Function<Graph, Solver> counterFactory) {
+        this.counterFactory = counterFactory;
+    }
+
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    //methods
+    //generates puzzle number index of the run with the given seed (the same puzzle on every call)
+    public Puzzle generate(long seed, long index) {
+        SplittableRandom random = new SplittableRandom(mix(seed ^ mix(index)));
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            int[] solution = randomSolution(random);
+            int[] clues = solution.clone();
+            int numClues = removeClues(clues, random);
+            if (numClues > targetClues) {
+                continue; //no clue could be removed before reaching the target
+            }
+            DeductionPipeline.Grade grade = GRADER.deduce(toDomains(clues), topology).getGrade();
+            if (targetGrade == null || grade == targetGrade) {
+                return new Puzzle(index, clues, solution, numClues, grade, attempt);
+            }
+        }
+        throw new IllegalStateException("No puzzle with " + targetClues + " clues" + (targetGrade == null ? "" : " and grade " + targetGrade)
+                + " was found in " + maxAttempts + " attempts (puzzle " + index + " of seed " + seed + ")");
+    }
+
+    //generates puzzles 0 through count - 1 in parallel, passing them to the consumer on the calling thread in index order
+    public void generate(long seed, long count, Consumer<Puzzle> onPuzzle) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Deque<Future<Puzzle>> window = new ArrayDeque<>(); //the puzzles in flight, oldest first
+        int windowSize = 4 * parallelism;
+        long nextIndex = 0;
+        try {
+            while (nextIndex < count || !window.isEmpty()) {
+                while (window.size() < windowSize && nextIndex < count) {
+                    long index = nextIndex++;
+                    window.add(pool.submit(() -> generate(seed, index)));
+                }
+                onPuzzle.accept(window.poll().get());
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating puzzles", e);
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to generate a puzzle", e.getCause());
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    //generates count puzzles into a file, one line per puzzle
+    public void write(long seed, long count, Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            write(seed, count, out);
+        }
+    }
+
+    public void write(long seed, long count, Writer out) throws IOException {
+        try {
+            generate(seed, count, puzzle -> {
+                try {
+                    out.write(puzzle.toLine());
+                    out.write('\n');
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java PuzzleGenerator count clues [seed] [NONE|ROTATIONAL|MIRROR] [EASY|MEDIUM|HARD|NEEDS_SEARCH|ANY] [boxSize]");
+            return;
+        }
+        long count = Long.parseLong(args[0]);
+        int clues = Integer.parseInt(args[1]);
+        long seed = (args.length > 2) ? Long.parseLong(args[2]) : 0;
+        Symmetry symmetry = (args.length > 3) ? Symmetry.valueOf(args[3].toUpperCase(Locale.ROOT)) : Symmetry.NONE;
+        int boxSize = (args.length > 5) ? Integer.parseInt(args[5]) : 3;
+
+        PuzzleGenerator generator = new PuzzleGenerator(boxSize, clues, symmetry);
+        if (args.length > 4 && !args[4].equalsIgnoreCase("ANY")) {
+            generator.setTargetGrade(DeductionPipeline.Grade.valueOf(args[4].toUpperCase(Locale.ROOT)));
+        }
+        generator.write(seed, count, new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII), 1 << 16));
+    }
+
+    //---- helper methods ----
+    //a complete grid: random diagonal boxes, completed by a solver, with its rows and columns shuffled within the symmetries of the board
+    private int[] randomSolution(SplittableRandom random) {
+        int boxSize = topology.getBoxSize();
+        int size = topology.getSize();
+        int[] cells = new int[topology.getNumCells()];
+        for (int box = 0; box < boxSize; box++) {
+            int[] values = shuffledRange(size, random);
+            int[] boxCells = topology.getHouse(2 * size + box * (boxSize + 1)); //boxes 0, boxSize + 1, 2 * (boxSize + 1), ...
+            for (int i = 0; i < size; i++) {
+                cells[boxCells[i]] = values[i] + 1;
+            }
+        }
+        Graph graph = new Graph(cells);
+        graph.buildSudokuEdges();
+        if (!new DLXSolver(graph).solve()) {
+            throw new IllegalStateException("A grid with random diagonal boxes could not be completed");
+        }
+
+        int[] rowOrder = shuffledLines(random);
+        int[] colOrder = shuffledLines(random);
+        int[] solution = new int[cells.length];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                solution[row * size + col] = graph.getNode(rowOrder[row] * size + colOrder[col]).getValue();
+            }
+        }
+        return solution;
+    }
+
+    //removes clues in a random order while the solution stays unique (and no harder than the target), returning the number left
+    private int removeClues(int[] clues, SplittableRandom random) {
+        Graph graph = new Graph(clues); //kept in step with the clues, for counting solutions
+        graph.buildSudokuEdges();
+        int numClues = clues.length;
+        for (int cell : shuffledRange(clues.length, random)) {
+            if (numClues <= targetClues) {
+                break;
+            }
+            if (clues[cell] == 0) {
+                continue; //already removed along with its partner
+            }
+            int partner = symmetry.partnerOf(cell, topology);
+            int numRemoved = (partner == cell) ? 1 : 2;
+            if (numClues - numRemoved < targetClues) {
+                continue;
+            }
+
+            int value = clues[cell];
+            int partnerValue = clues[partner];
+            setClue(clues, graph, cell, 0);
+            setClue(clues, graph, partner, 0);
+            if (isAcceptable(clues, graph)) {
+                numClues -= numRemoved;
+            }
+            else {
+                setClue(clues, graph, cell, value);
+                setClue(clues, graph, partner, partnerValue);
+            }
+        }
+        return numClues;
+    }
+
+    //checks that the clues have a single solution, and are no harder than the target grade
+    private boolean isAcceptable(int[] clues, Graph graph) {
+        DeductionPipeline deductions = (targetGrade == null) ? SINGLES : GRADER;
+        DeductionPipeline.Trace trace = deductions.deduce(toDomains(clues), topology);
+        if (trace.isSolved()) {
+            return targetGrade == null || trace.getGrade().compareTo(targetGrade) <= 0; //deduced, so unique
+        }
+        if (targetGrade != null && targetGrade != DeductionPipeline.Grade.NEEDS_SEARCH) {
+            return false; //the puzzle would need a search
+        }
+        return counterFactory.apply(graph).countSolutions(2) == 1;
+    }
+
+    private static void setClue(int[] clues, Graph graph, int cell, int value) {
+        clues[cell] = value;
+        graph.getNode(cell).changeValue(value);
+    }
+
+    //the candidate domains of the clues before any deduction: the clue's value, or every value for an empty cell
+    private int[] toDomains(int[] clues) {
+        int[] domains = new int[clues.length];
+        for (int cell = 0; cell < clues.length; cell++) {
+            domains[cell] = (clues[cell] != 0) ? (1 << clues[cell]) : topology.getAllValuesMask();
+        }
+        return domains;
+    }
+
+    //a random order of the rows (or columns) that keeps every band (stack) together: the bands, then the lines within each band, are shuffled
+    private int[] shuffledLines(SplittableRandom random) {
+        int boxSize = topology.getBoxSize();
+        int[] bandOrder = shuffledRange(boxSize, random);
+        int[] lines = new int[topology.getSize()];
+        for (int band = 0; band < boxSize; band++) {
+            int[] lineOrder = shuffledRange(boxSize, random);
+            for (int i = 0; i < boxSize; i++) {
+                lines[band * boxSize + i] = bandOrder[band] * boxSize + lineOrder[i];
+            }
+        }
+        return lines;
+    }
+
+    //0 through n - 1 in a random order (Fisher-Yates)
+    private static int[] shuffledRange(int n, SplittableRandom random) {
+        int[] range = new int[n];
+        for (int i = 0; i < n; i++) {
+            int j = random.nextInt(i + 1);
+            range[i] = range[j];
+            range[j] = i;
+        }
+        return range;
+    }
+
+    //a 64-bit finaliser (Stafford's variant 13), so that neighbouring seeds and indices give unrelated random streams
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
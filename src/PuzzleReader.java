@@ -0,0 +1,206 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.*;
+
+public class PuzzleReader implements Iterator<int[]>, Closeable {
+    /*
+    Streams one-line Sudoku boards (81 cells for a 9x9 board, row by row, "0" or "." for an empty cell, and letters
+    from "A" = 10 for the values of larger boards) from a file of any size.
+    The file is memory-mapped a window at a time and parsed straight from the mapped bytes into a flat int array of
+    cell values, so memory use stays bounded no matter how many boards the file holds.
+    Blank lines are skipped; a malformed line is reported with its line number.
+     */
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024; //bytes mapped at once
+
+    //attributes
+    private final FileChannel channel;
+    private final long fileSize;
+    private MappedByteBuffer window;
+    private long windowStart = 0;
+    private long lineNumber = 0;
+    private final int size; //the largest value of a cell
+    private final int numCells;
+    private final int[] cells; //reused by next()
+    private boolean hasBufferedBoard = false;
+
+    //constructors
+    public PuzzleReader(Path path) throws IOException { //reads 9x9 boards
+        this(open(path, 3), 3);
+    }
+
+    public PuzzleReader(Path path, int boxSize) throws IOException {
+        this(open(path, boxSize), boxSize);
+    }
+
+    //takes ownership of the channel, which is closed if the reader cannot be constructed
+    public PuzzleReader(FileChannel channel, int boxSize) throws IOException {
+        try {
+            SudokuTopology topology = SudokuTopology.forBoxSize(boxSize);
+            this.size = topology.getSize();
+            this.numCells = topology.getNumCells();
+            this.cells = new int[numCells];
+            this.channel = channel;
+            this.fileSize = channel.size();
+            mapWindow(0);
+        }
+        catch (IOException | RuntimeException e) {
+            try {
+                channel.close();
+            }
+            catch (IOException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
+    }
+
+    //opens a file as a lazy stream of boards; each board is a fresh array, and closing the stream closes the file
+    public static Stream<int[]> stream(Path path) throws IOException {
+        return stream(path, 3);
+    }
+
+    public static Stream<int[]> stream(Path path, int boxSize) throws IOException {
+        PuzzleReader reader = new PuzzleReader(path, boxSize);
+        Spliterator<int[]> spliterator = Spliterators.spliteratorUnknownSize(reader, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false)
+                .map(int[]::clone)
+                .onClose(() -> {
+                    try {
+                        reader.close();
+                    }
+                    catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    //getters
+    //the line number of the board read most recently, starting at 1
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    //methods
+    //reads the next board into the given array of cells (81 for a 9x9 board), returning false once the file is exhausted
+    public boolean readNext(int[] into) {
+        if (hasBufferedBoard) {
+            System.arraycopy(cells, 0, into, 0, numCells);
+            hasBufferedBoard = false;
+            return true;
+        }
+        try {
+            while (true) {
+                int lineStart = window.position();
+                int lineEnd = findLineEnd(lineStart);
+                if (lineEnd < 0) { //the line continues beyond the mapped window
+                    long absoluteStart = windowStart + lineStart;
+                    if (absoluteStart >= fileSize) {
+                        return false;
+                    }
+                    if (windowStart + window.limit() >= fileSize) {
+                        lineEnd = window.limit(); //the last line of the file has no line break
+                    }
+                    else {
+                        if (lineStart == 0) {
+                            throw new IllegalArgumentException("Malformed Sudoku on line " + (lineNumber + 1) + ": line is longer than " + WINDOW_SIZE + " bytes");
+                        }
+                        mapWindow(absoluteStart);
+                        continue;
+                    }
+                }
+                lineNumber++;
+                window.position(Math.min(lineEnd + 1, window.limit()));
+                if (parseLine(lineStart, lineEnd, into)) {
+                    return true;
+                }
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //iterator view: next() returns the same array every time, overwritten by the following call
+    @Override
+    public boolean hasNext() {
+        if (!hasBufferedBoard) {
+            hasBufferedBoard = readNext(cells);
+        }
+        return hasBufferedBoard;
+    }
+
+    @Override
+    public int[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        hasBufferedBoard = false;
+        return cells;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    //---- helper methods ----
+    //checks the box size before opening the file, so an unsupported one never leaves a channel to close
+    private static FileChannel open(Path path, int boxSize) throws IOException {
+        SudokuTopology.forBoxSize(boxSize);
+        return FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    private void mapWindow(long start) throws IOException {
+        windowStart = start;
+        long length = Math.min(WINDOW_SIZE, fileSize - start);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+    }
+
+    //the position of the next line break at or after start, or -1 if the window holds none
+    private int findLineEnd(int start) {
+        for (int i = start, limit = window.limit(); i < limit; i++) {
+            if (window.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    //parses the bytes of one line, returning false for a blank line
+    private boolean parseLine(int start, int end, int[] into) {
+        //trims surrounding whitespace (including the '\r' of Windows line endings)
+        while (start < end && isWhitespace(window.get(start))) {
+            start++;
+        }
+        while (end > start && isWhitespace(window.get(end - 1))) {
+            end--;
+        }
+        if (start == end) {
+            return false;
+        }
+        if (end - start != numCells) {
+            throw new IllegalArgumentException("Malformed Sudoku on line " + lineNumber + ": expected " + numCells
+                    + " cells but found " + (end - start));
+        }
+        for (int cell = 0; cell < numCells; cell++) {
+            byte b = window.get(start + cell);
+            int value = SudokuParser.decodeCell((char) b);
+            if (value >= 0 && value <= size) {
+                into[cell] = value;
+            }
+            else {
+                throw new IllegalArgumentException("Malformed Sudoku on line " + lineNumber + ": unexpected character '"
+                        + (char) b + "' in cell " + (cell + 1));
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+}
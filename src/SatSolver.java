@@ -0,0 +1,138 @@
+public class SatSolver extends Solver {
+    /*
+    Solves the puzzle by encoding it as a boolean formula in conjunctive normal form and handing it to CdclEngine.
+    Variable (node, value) is true when the node holds the value. Every node holds at least one value and at most one
+    (pairwise exclusions); on a Sudoku board, every value also appears at least once and at most once in each house,
+    and on any other graph, neighbours never share a value. The current values (the clues) are unit clauses.
+    Clause learning lets the search remember why a branch failed, which pays off on adversarial and large boards
+    where chronological backtracking keeps rediscovering the same dead ends.
+     */
+
+    //attributes
+    private CdclEngine engine; //the engine of the last solve
+
+    //constructor
+    public SatSolver(Graph sudokuGraph) {
+        super(sudokuGraph);
+    }
+
+    //getters
+    //the engine of the last solve, with its conflict and learned clause counts
+    public CdclEngine getEngine() {
+        return engine;
+    }
+
+    @Override
+    protected boolean search() {
+        int numNodes = sudokuGraph.getNumVertices();
+        int maxValue = sudokuGraph.getMaxValue();
+        engine = new CdclEngine(numNodes * maxValue);
+        engine.setStats(stats);
+        engine.setStopCondition(this::isOutOfBudget);
+        if (!encode()) {
+            return false; //the clues conflict
+        }
+
+        if (!engine.solve()) {
+            int[] partial = engine.getDeepestAssignment();
+            if (partial != null) {
+                int[] values = decode(partial);
+                int depth = 0;
+                for (int value : values) {
+                    depth += (value != 0) ? 1 : 0;
+                }
+                recordPartial(depth, values);
+            }
+            return false;
+        }
+        for (Node node : sudokuGraph.getAllNodes()) {
+            for (int value = 1; value <= maxValue; value++) {
+                if (engine.isTrue(variable(node.getIndex(), value))) {
+                    node.changeValue(value);
+                    break;
+                }
+            }
+        }
+        return true;
+    }
+
+    //---- helper methods ----
+    //adds the clauses of the puzzle to the engine, returning false if they are already unsatisfiable
+    private boolean encode() {
+        int numNodes = sudokuGraph.getNumVertices();
+        int maxValue = sudokuGraph.getMaxValue();
+        boolean consistent = true;
+
+        //each node holds exactly one value
+        int[] clause = new int[maxValue];
+        for (int node = 0; node < numNodes; node++) {
+            for (int value = 1; value <= maxValue; value++) {
+                clause[value - 1] = variable(node, value);
+            }
+            consistent &= addExactlyOne(clause);
+        }
+
+        SudokuTopology topology = sudokuGraph.getTopology();
+        if (topology != null) {
+            //each value appears exactly once in each house
+            for (int house = 0; house < topology.getNumHouses(); house++) {
+                int[] cells = topology.getHouse(house);
+                int[] houseClause = new int[cells.length];
+                for (int value = 1; value <= maxValue; value++) {
+                    for (int k = 0; k < cells.length; k++) {
+                        houseClause[k] = variable(cells[k], value);
+                    }
+                    consistent &= addExactlyOne(houseClause);
+                }
+            }
+        }
+        else {
+            //neighbours never share a value
+            for (int node = 0; node < numNodes; node++) {
+                for (int neighbour : sudokuGraph.getNeighbourIndices(node)) {
+                    for (int value = 1; node < neighbour && value <= maxValue; value++) {
+                        consistent &= engine.addClause(-variable(node, value), -variable(neighbour, value));
+                    }
+                }
+            }
+        }
+
+        //the clues
+        for (Node node : sudokuGraph.getAllNodes()) {
+            if (node.getValue() != 0) {
+                consistent &= engine.addClause(variable(node.getIndex(), node.getValue()));
+            }
+        }
+        return consistent;
+    }
+
+    //at least one of the variables is true, and no two of them are
+    private boolean addExactlyOne(int[] variables) {
+        boolean consistent = engine.addClause(variables);
+        for (int i = 0; i < variables.length; i++) {
+            for (int j = i + 1; j < variables.length; j++) {
+                consistent &= engine.addClause(-variables[i], -variables[j]);
+            }
+        }
+        return consistent;
+    }
+
+    //the node values of an assignment of the engine's variables (0 where no value is true)
+    private int[] decode(int[] assignment) {
+        int maxValue = sudokuGraph.getMaxValue();
+        int[] values = new int[sudokuGraph.getNumVertices()];
+        for (int node = 0; node < values.length; node++) {
+            for (int value = 1; value <= maxValue; value++) {
+                if (assignment[variable(node, value)] > 0) {
+                    values[node] = value;
+                }
+            }
+        }
+        return values;
+    }
+
+    //the engine variable (from 1) stating that the node holds the value
+    private int variable(int node, int value) {
+        return node * sudokuGraph.getMaxValue() + value;
+    }
+}
@@ -0,0 +1,117 @@
+import java.util.*;
+
+public class SolutionCache {
+    /*
+    A bounded cache of solved boards, keyed by their canonical form, so a single entry serves every board that equals
+    the solved one up to Sudoku symmetries. Solutions are stored in the canonical layout and mapped back through the
+    transform of the board being looked up.
+    Entries are evicted least recently used first once their estimated size exceeds the memory cap. The cache is
+    shared by the worker threads of a BatchSolver, so every method synchronizes on it.
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 112; //map entry, key string and array headers, estimated for a 64-bit JVM
+
+    //attributes
+    private final long maxBytes;
+    private final LinkedHashMap<String, byte[]> solutions = new LinkedHashMap<>(16, 0.75f, true); //in access order
+    private long bytesUsed = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    //constructor
+    public SolutionCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("The memory cap of a solution cache must be positive, got " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    //getters
+    public synchronized int size() {
+        return solutions.size();
+    }
+
+    public synchronized long getBytesUsed() {
+        return bytesUsed;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    //the fraction of lookups answered from the cache
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return (lookups == 0) ? 0 : (double) hits / lookups;
+    }
+
+    //methods
+    //the solution of the board with the given canonical form, in its own layout and values, or null if it is not cached
+    public int[] get(CanonicalForm form) {
+        byte[] stored;
+        synchronized (this) {
+            stored = solutions.get(form.getKey());
+            if (stored == null) {
+                misses++;
+                return null;
+            }
+            hits++;
+        }
+        int[] canonicalSolution = new int[stored.length];
+        for (int cell = 0; cell < stored.length; cell++) {
+            canonicalSolution[cell] = stored[cell];
+        }
+        return form.fromCanonical(canonicalSolution);
+    }
+
+    //stores the solution (cell values row by row) of the board with the given canonical form
+    public void put(CanonicalForm form, int[] solution) {
+        int[] canonicalSolution = form.toCanonical(solution);
+        byte[] stored = new byte[canonicalSolution.length];
+        for (int cell = 0; cell < stored.length; cell++) {
+            stored[cell] = (byte) canonicalSolution[cell];
+        }
+        String key = form.getKey();
+
+        synchronized (this) {
+            if (solutions.put(key, stored) == null) {
+                bytesUsed += entryBytes(key, stored);
+            }
+            //evicts the least recently used entries, but always keeps the newest one
+            Iterator<Map.Entry<String, byte[]>> eldest = solutions.entrySet().iterator();
+            while (bytesUsed > maxBytes && solutions.size() > 1) {
+                Map.Entry<String, byte[]> entry = eldest.next();
+                bytesUsed -= entryBytes(entry.getKey(), entry.getValue());
+                eldest.remove();
+                evictions++;
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        solutions.clear();
+        bytesUsed = 0;
+    }
+
+    public synchronized String toJson() {
+        return String.format(Locale.ROOT, "{\"entries\":%d,\"bytesUsed\":%d,\"maxBytes\":%d,\"hits\":%d,\"misses\":%d,\"hitRate\":%.4f,\"evictions\":%d}",
+                solutions.size(), bytesUsed, maxBytes, hits, misses, getHitRate(), evictions);
+    }
+
+    //---- helper methods ----
+    private static long entryBytes(String key, byte[] solution) {
+        return key.length() + solution.length + ENTRY_OVERHEAD_BYTES;
+    }
+}
@@ -0,0 +1,323 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.*;
+
+public final class SolutionVerifier {
+    /*
+    Checks solved boards: every cell holds a value from 1 to the board size, the clues of the puzzle are unchanged,
+    and no house (row, column or box) holds a value twice. Each house is checked with a single bitmask (bit v for
+    value v): with as many cells as values, a house is valid if and only if the or of its values' bits has all of
+    them, so a valid board is verified without allocating anything. Only a failing board is scanned again, to find
+    the first violation, which is returned as a Violation (null means the board is valid).
+    Packed puzzle files (see PackedPuzzleFile) are verified record by record on all cores, each thread decoding into
+    its own two arrays, and the report names the first invalid record and its first violation.
+     */
+    private static final int RECORDS_PER_TASK = 4096;
+
+    //the first thing found wrong with a board
+    public static final class Violation {
+        public enum Kind {
+            INVALID_VALUE, //an empty cell, or a value outside 1 to the board size
+            CLUE_CHANGED, //a cell whose value differs from the puzzle's clue
+            REPEATED_VALUE //a value held twice by a house
+        }
+
+        private final Kind kind;
+        private final int house; //-1 unless the value is repeated (and for graphs without houses)
+        private final int cell;
+        private final int value;
+        private final String houseName;
+
+        private Violation(Kind kind, int house, int cell, int value, String houseName) {
+            this.kind = kind;
+            this.house = house;
+            this.cell = cell;
+            this.value = value;
+            this.houseName = houseName;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        //the house holding the repeated value: rows first, then columns, then boxes
+        public int getHouse() {
+            return house;
+        }
+
+        //the cell at fault (for a repeated value, its second occurrence in the house)
+        public int getCell() {
+            return cell;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            switch (kind) {
+                case INVALID_VALUE:
+                    return "cell " + cell + " holds " + value;
+                case CLUE_CHANGED:
+                    return "cell " + cell + " holds " + value + " instead of its clue";
+                default:
+                    return houseName + " holds " + value + " twice (again at cell " + cell + ")";
+            }
+        }
+    }
+
+    //the outcome of verifying every record of a packed puzzle file
+    public static final class FileReport {
+        private final long numRecords;
+        private final long numUnsolved;
+        private final long numInvalid;
+        private final long firstInvalidRecord;
+        private final Violation firstViolation;
+        private final boolean checksumValid;
+        private final long elapsedNanos;
+
+        private FileReport(long numRecords, long numUnsolved, long numInvalid, long firstInvalidRecord,
+                           Violation firstViolation, boolean checksumValid, long elapsedNanos) {
+            this.numRecords = numRecords;
+            this.numUnsolved = numUnsolved;
+            this.numInvalid = numInvalid;
+            this.firstInvalidRecord = firstInvalidRecord;
+            this.firstViolation = firstViolation;
+            this.checksumValid = checksumValid;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getNumRecords() {
+            return numRecords;
+        }
+
+        //the records stored without a solution, which are not checked
+        public long getNumUnsolved() {
+            return numUnsolved;
+        }
+
+        public long getNumInvalid() {
+            return numInvalid;
+        }
+
+        //the index of the first record whose solution is invalid, or -1
+        public long getFirstInvalidRecord() {
+            return firstInvalidRecord;
+        }
+
+        //the first violation of the first invalid record, or null
+        public Violation getFirstViolation() {
+            return firstViolation;
+        }
+
+        public boolean isChecksumValid() {
+            return checksumValid;
+        }
+
+        //whether the checksum matches and every stored solution is valid
+        public boolean isValid() {
+            return checksumValid && numInvalid == 0;
+        }
+
+        public String toJson() {
+            return String.format(Locale.ROOT, "{\"records\":%d,\"unsolved\":%d,\"invalid\":%d,\"firstInvalidRecord\":%d,"
+                            + "\"firstViolation\":%s,\"checksumValid\":%b,\"elapsedNanos\":%d}",
+                    numRecords, numUnsolved, numInvalid, firstInvalidRecord,
+                    (firstViolation == null) ? "null" : "\"" + firstViolation + "\"", checksumValid, elapsedNanos);
+        }
+    }
+
+    private SolutionVerifier() {} //only holds static methods
+
+    //methods
+    //the first violation of a solution (cell values in row-major order) given the puzzle's clues (null for none)
+    public static Violation verify(int[] solution, int[] clues, SudokuTopology topology) {
+        int numCells = topology.getNumCells();
+        if (solution.length != numCells || (clues != null && clues.length != numCells)) {
+            throw new IllegalArgumentException("A " + topology.getSize() + "x" + topology.getSize() + " board has " + numCells + " cells");
+        }
+        int size = topology.getSize();
+        for (int cell = 0; cell < numCells; cell++) {
+            int value = solution[cell];
+            if (value < 1 || value > size) {
+                return new Violation(Violation.Kind.INVALID_VALUE, -1, cell, value, null);
+            }
+            if (clues != null && clues[cell] != 0 && clues[cell] != value) {
+                return new Violation(Violation.Kind.CLUE_CHANGED, -1, cell, value, null);
+            }
+        }
+
+        int allValues = topology.getAllValuesMask();
+        for (int house = 0; house < topology.getNumHouses(); house++) {
+            int[] cells = topology.getHouse(house);
+            int seen = 0;
+            for (int cell : cells) {
+                seen |= 1 << solution[cell];
+            }
+            if (seen != allValues) {
+                //a value is missing, so another one is repeated: finds its second occurrence
+                seen = 0;
+                for (int cell : cells) {
+                    int bit = 1 << solution[cell];
+                    if ((seen & bit) != 0) {
+                        return new Violation(Violation.Kind.REPEATED_VALUE, house, cell, solution[cell], houseName(topology, house));
+                    }
+                    seen |= bit;
+                }
+            }
+        }
+        return null;
+    }
+
+    public static boolean isValid(int[] solution, int[] clues, SudokuTopology topology) {
+        return verify(solution, clues, topology) == null;
+    }
+
+    //the first violation of a graph's current values; a graph without a board layout is checked by the rows, columns
+    //and boxes of its nodes' positions
+    public static Violation verify(Graph graph) {
+        SudokuTopology topology = graph.getTopology();
+        if (topology == null) {
+            return verifyByPosition(graph);
+        }
+        int size = topology.getSize();
+        for (int cell = 0; cell < topology.getNumCells(); cell++) {
+            int value = graph.getNode(cell).getValue();
+            if (value < 1 || value > size) {
+                return new Violation(Violation.Kind.INVALID_VALUE, -1, cell, value, null);
+            }
+        }
+
+        int allValues = topology.getAllValuesMask();
+        for (int house = 0; house < topology.getNumHouses(); house++) {
+            int[] cells = topology.getHouse(house);
+            int seen = 0;
+            for (int cell : cells) {
+                seen |= 1 << graph.getNode(cell).getValue();
+            }
+            if (seen != allValues) {
+                seen = 0;
+                for (int cell : cells) {
+                    int value = graph.getNode(cell).getValue();
+                    if ((seen & (1 << value)) != 0) {
+                        return new Violation(Violation.Kind.REPEATED_VALUE, house, cell, value, houseName(topology, house));
+                    }
+                    seen |= 1 << value;
+                }
+            }
+        }
+        return null;
+    }
+
+    //verifies the solution of every record of a packed puzzle file against its puzzle, in parallel
+    public static FileReport verifyFile(Path path) throws IOException {
+        long startTime = System.nanoTime();
+        try (PackedPuzzleReader reader = new PackedPuzzleReader(path)) {
+            SudokuTopology topology = reader.getTopology();
+            long numRecords = reader.getNumRecords();
+            int numTasks = (int) ((numRecords + RECORDS_PER_TASK - 1) / RECORDS_PER_TASK);
+
+            //each task checks a range of records in order, so the first invalid record is the first of the first
+            //task that found one
+            long[] unsolved = new long[numTasks];
+            long[] invalid = new long[numTasks];
+            long[] firstInvalid = new long[numTasks];
+            Violation[] firstViolations = new Violation[numTasks];
+            IntStream.range(0, numTasks).parallel().forEach(task -> {
+                int[] clues = new int[topology.getNumCells()];
+                int[] solution = new int[topology.getNumCells()];
+                firstInvalid[task] = -1;
+                long end = Math.min(numRecords, (long) (task + 1) * RECORDS_PER_TASK);
+                for (long index = (long) task * RECORDS_PER_TASK; index < end; index++) {
+                    if (!reader.hasSolution(index)) {
+                        unsolved[task]++;
+                        continue;
+                    }
+                    reader.readPuzzle(index, clues);
+                    reader.readSolution(index, solution);
+                    Violation violation = verify(solution, clues, topology);
+                    if (violation != null) {
+                        invalid[task]++;
+                        if (firstInvalid[task] < 0) {
+                            firstInvalid[task] = index;
+                            firstViolations[task] = violation;
+                        }
+                    }
+                }
+            });
+            boolean checksumValid = reader.verifyChecksum();
+
+            long numUnsolved = 0;
+            long numInvalid = 0;
+            long firstInvalidRecord = -1;
+            Violation firstViolation = null;
+            for (int task = 0; task < numTasks; task++) {
+                numUnsolved += unsolved[task];
+                numInvalid += invalid[task];
+                if (firstInvalidRecord < 0 && firstInvalid[task] >= 0) {
+                    firstInvalidRecord = firstInvalid[task];
+                    firstViolation = firstViolations[task];
+                }
+            }
+            return new FileReport(numRecords, numUnsolved, numInvalid, firstInvalidRecord, firstViolation,
+                    checksumValid, System.nanoTime() - startTime);
+        }
+    }
+
+    //verifies packed puzzle files, e.g. java SolutionVerifier solved.sdkp; exits with 1 if any of them is invalid
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java SolutionVerifier file.sdkp [file.sdkp ...]");
+            return;
+        }
+        boolean allValid = true;
+        for (String file : args) {
+            FileReport report = verifyFile(Paths.get(file));
+            System.out.println(file + ": " + report.toJson());
+            allValid &= report.isValid();
+        }
+        if (!allValid) {
+            System.exit(1);
+        }
+    }
+
+    //---- helper methods ----
+    //compares every pair of nodes, as the houses of a hand-built graph are only known from its nodes' positions
+    private static Violation verifyByPosition(Graph graph) {
+        int numNodes = graph.getNumVertices();
+        int maxValue = graph.getMaxValue();
+        for (int i = 0; i < numNodes; i++) {
+            int value = graph.getNode(i).getValue();
+            if (value < 1 || value > maxValue) {
+                return new Violation(Violation.Kind.INVALID_VALUE, -1, i, value, null);
+            }
+        }
+        for (int j = 1; j < numNodes; j++) {
+            Node node = graph.getNode(j);
+            for (int i = 0; i < j; i++) {
+                Node other = graph.getNode(i);
+                if (other.getValue() != node.getValue()) {
+                    continue;
+                }
+                if (other.getPosn().getRow() == node.getPosn().getRow()) {
+                    return new Violation(Violation.Kind.REPEATED_VALUE, -1, j, node.getValue(), "row " + node.getPosn().getRow());
+                }
+                if (other.getPosn().getCol() == node.getPosn().getCol()) {
+                    return new Violation(Violation.Kind.REPEATED_VALUE, -1, j, node.getValue(), "column " + node.getPosn().getCol());
+                }
+                if (other.getBoxNumber() == node.getBoxNumber()) {
+                    return new Violation(Violation.Kind.REPEATED_VALUE, -1, j, node.getValue(), "box " + node.getBoxNumber());
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String houseName(SudokuTopology topology, int house) {
+        int size = topology.getSize();
+        String kind = (house < size) ? "row " : (house < 2 * size) ? "column " : "box ";
+        return kind + house % size;
+    }
+}
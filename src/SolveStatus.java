@@ -0,0 +1,17 @@
+public enum SolveStatus {
+    /*
+    The outcome of a solve (see Solver.getStatus). Only SOLVED and UNSAT are answers about the puzzle: a solve that
+    was stopped by its budget or its CancellationToken, or that gave up part of the search, says nothing about whether
+    a solution exists.
+     */
+    SOLVED, //a solution was found and written to the graph
+    UNSAT, //the search was exhausted: the puzzle has no solution
+    TIMEOUT, //the time or node budget ran out before the search finished
+    CANCELLED, //the solve's CancellationToken was cancelled before the search finished
+    INCOMPLETE; //an incomplete search (e.g. a beam search) ran out of states after discarding some of them
+
+    //whether the search ended without an answer, stopped or giving up before it could finish
+    public boolean isStopped() {
+        return this == TIMEOUT || this == CANCELLED || this == INCOMPLETE;
+    }
+}
@@ -1,20 +1,274 @@
 import java.util.*;
+import java.util.concurrent.atomic.*;
 
 public abstract class Solver {
+    private static final int BUDGET_CHECK_INTERVAL = 64; //search nodes between two checks of the clock and the cancellation token
+
     protected Graph sudokuGraph;
+    protected SolverStats stats = new SolverStats(false); //disabled unless enableStats() is called
+    private DeductionPipeline deductions; //run before the search, if set
+    private DeductionPipeline.Trace deductionTrace;
+
+    //the budget of each solve, and what happened to the last one
+    private long timeLimitNanos = Long.MAX_VALUE;
+    private long nodeLimit = Long.MAX_VALUE;
+    private CancellationToken cancellationToken;
+    private long deadlineNanos;
+    private long budgetNodes; //search nodes charged against the node limit
+    private final AtomicLong sharedBudgetNodes = new AtomicLong(); //the same, for searches spread over several threads
+    private volatile SolveStatus stopStatus; //set once the search has to stop
+    private SolveStatus status;
+    private boolean incomplete; //set once the search has discarded part of the search space
+    private boolean trackPartials; //only under a budget or a token: otherwise a search either finishes or fails
+    private volatile int bestPartialDepth;
+    private int[] bestPartial;
 
     //constructor
     public Solver(Graph graph) {
         this.sudokuGraph = graph;
     }
 
-    public abstract boolean solve();
+    //solves the puzzle in place, returning whether a solution was found; how the solve ended (including a stop by its
+    //budget) is kept in getStatus(), and its statistics in getStats()
+    public final boolean solve() {
+        stats.reset();
+        long startTime = System.nanoTime();
+        startBudget();
+        boolean solved;
+        if (stopStatus != null) {
+            solved = false; //cancelled before it started
+        }
+        else if (deductions == null) {
+            solved = search();
+        }
+        else {
+            //the search only starts if the deductions leave cells undecided, and starts from the cells they filled in
+            deductionTrace = deductions.run(sudokuGraph);
+            solved = deductionTrace.isConsistent() && (deductionTrace.isSolved() || search());
+        }
+        finishBudget(solved);
+        stats.setWallTimeNanos(System.nanoTime() - startTime);
+        return solved;
+    }
+
+    //the search itself, implemented by each solver
+    protected abstract boolean search();
+
+    //counts the solutions of the puzzle from its current values, stopping at cap (a cap of 2 tells unique puzzles apart);
+    //by default, the search runs in parallel on copies of the propagated domains and leaves the graph unchanged;
+    //a count stopped by the budget (getStatus() is then TIMEOUT or CANCELLED) only gives a lower bound
+    public long countSolutions(long cap) {
+        Solver counter = new ParallelSolver(sudokuGraph);
+        counter.timeLimitNanos = timeLimitNanos;
+        counter.nodeLimit = nodeLimit;
+        counter.cancellationToken = cancellationToken;
+        long count = counter.countSolutions(cap);
+        status = counter.status;
+        return count;
+    }
+
+    public long countSolutions() {
+        return countSolutions(Long.MAX_VALUE);
+    }
+
+    public boolean hasUniqueSolution() {
+        return countSolutions(2) == 1;
+    }
+
+    //---- budgets and cancellation ----
+    //stops every later solve (and count) after the given time, with the status TIMEOUT
+    public void setTimeLimitNanos(long timeLimitNanos) {
+        if (timeLimitNanos <= 0) {
+            throw new IllegalArgumentException("The time limit must be positive, got " + timeLimitNanos);
+        }
+        this.timeLimitNanos = timeLimitNanos;
+    }
+
+    //stops every later solve (and count) after the given number of search nodes, with the status TIMEOUT
+    public void setNodeLimit(long nodeLimit) {
+        if (nodeLimit <= 0) {
+            throw new IllegalArgumentException("The node limit must be positive, got " + nodeLimit);
+        }
+        this.nodeLimit = nodeLimit;
+    }
+
+    //stops the solve as soon as the token is cancelled, with the status CANCELLED (null for no token)
+    public void setCancellationToken(CancellationToken cancellationToken) {
+        this.cancellationToken = cancellationToken;
+    }
+
+    public CancellationToken getCancellationToken() {
+        return cancellationToken;
+    }
+
+    //the outcome of the last solve (or count): SOLVED, UNSAT, TIMEOUT or CANCELLED; null before the first one
+    public SolveStatus getStatus() {
+        return status;
+    }
+
+    //the cell values (0 for an empty cell) at the deepest point the last search reached: the solution if one was
+    //found, or otherwise the most complete consistent assignment seen before the search failed or was stopped
+    public int[] getBestPartialAssignment() {
+        if (status == SolveStatus.SOLVED || bestPartial == null) {
+            return currentValues();
+        }
+        return bestPartial.clone();
+    }
+
+    //turns on the per-search counters (nodes visited, guesses, backtracks, propagations and maximum depth)
+    public void enableStats() {
+        this.stats = new SolverStats(true);
+    }
+
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    //runs the given logical deductions on the graph at the start of every solve (null to search straight away)
+    public void setDeductions(DeductionPipeline deductions) {
+        this.deductions = deductions;
+    }
+
+    //the techniques used by the deductions of the last solve, and the grade of the puzzle; null without deductions
+    public DeductionPipeline.Trace getDeductionTrace() {
+        return deductionTrace;
+    }
+
+    //---- budget methods used in the solvers' search loops ----
+    //starts the budget of a search: solve() calls it itself, and solvers that override countSolutions call it first
+    protected final void startBudget() {
+        deadlineNanos = (timeLimitNanos == Long.MAX_VALUE) ? Long.MAX_VALUE : System.nanoTime() + timeLimitNanos;
+        budgetNodes = 0;
+        sharedBudgetNodes.set(0);
+        trackPartials = timeLimitNanos != Long.MAX_VALUE || nodeLimit != Long.MAX_VALUE || cancellationToken != null;
+        bestPartialDepth = -1;
+        bestPartial = null;
+        incomplete = false;
+        stopStatus = (cancellationToken != null && cancellationToken.isCancelled()) ? SolveStatus.CANCELLED : null;
+    }
+
+    //records the outcome of a search started with startBudget, and returns it (a count should only report itself as
+    //found if it was not stopped, as its number of solutions is then only a lower bound)
+    protected final SolveStatus finishBudget(boolean found) {
+        status = found ? SolveStatus.SOLVED : (stopStatus != null) ? stopStatus : incomplete ? SolveStatus.INCOMPLETE : SolveStatus.UNSAT;
+        return status;
+    }
+
+    //called by searches that discard part of the search space: a failed search then ends INCOMPLETE, not UNSAT
+    protected final void markIncomplete() {
+        incomplete = true;
+    }
+
+    //called once per search node by single-threaded searches: true once the search has to stop, in which case it
+    //should unwind straight away; only a counter is checked at most nodes, and the clock and token every so often
+    protected final boolean isOutOfBudget() {
+        if (stopStatus != null) {
+            return true;
+        }
+        if (++budgetNodes > nodeLimit) {
+            stopStatus = SolveStatus.TIMEOUT;
+            return true;
+        }
+        return budgetNodes % BUDGET_CHECK_INTERVAL == 0 && checkClockAndToken();
+    }
+
+    //the same, for searches spread over several threads: each thread charges its nodes in batches of numNodes
+    protected final boolean isOutOfBudget(int numNodes) {
+        if (stopStatus != null) {
+            return true;
+        }
+        if (sharedBudgetNodes.addAndGet(numNodes) > nodeLimit) {
+            stopStatus = SolveStatus.TIMEOUT;
+            return true;
+        }
+        return checkClockAndToken();
+    }
+
+    //the number of nodes a thread of a parallel search should charge at once: the given batch, or less once the
+    //node limit is closer than that, so that small limits are enforced as exactly as by a single-threaded search
+    protected final int getBudgetBatch(int maxBatch) {
+        long remaining = nodeLimit - sharedBudgetNodes.get();
+        return (int) Math.max(1, Math.min(maxBatch, remaining));
+    }
+
+    //whether the search has been stopped, without charging a node
+    protected final boolean isStopped() {
+        return stopStatus != null;
+    }
+
+    //whether a search node at the given depth is deeper than any the search has reached before (and worth recording)
+    protected final boolean isBetterPartial(int depth) {
+        return trackPartials && depth > bestPartialDepth;
+    }
+
+    //keeps the cell values of the deepest search node so far (called after isBetterPartial, so only rarely)
+    protected final synchronized void recordPartial(int depth, int[] values) {
+        if (depth > bestPartialDepth) {
+            bestPartialDepth = depth;
+            bestPartial = values;
+        }
+    }
+
+    //the current cell values of the graph
+    protected final int[] currentValues() {
+        int[] values = new int[sudokuGraph.getNumVertices()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = sudokuGraph.getNode(i).getValue();
+        }
+        return values;
+    }
+
+    //solves the graph with another solver under what remains of this solver's budget, taking on its statistics,
+    //status and best partial assignment
+    protected final boolean delegateSolve(Solver solver) {
+        passBudgetTo(solver, cancellationToken);
+        boolean solved = solver.solve();
+        stats.add(solver.getStats());
+        adoptOutcome(solver, true);
+        return solved;
+    }
+
+    //gives another solver what remains of this solver's budget and the given token (this solver's own, or a child of
+    //it), and turns on its statistics if this solver's are on
+    protected final void passBudgetTo(Solver solver, CancellationToken token) {
+        if (stats.isEnabled()) {
+            solver.enableStats();
+        }
+        solver.cancellationToken = token;
+        solver.nodeLimit = (nodeLimit == Long.MAX_VALUE) ? nodeLimit : Math.max(1, nodeLimit - budgetNodes);
+        solver.timeLimitNanos = (deadlineNanos == Long.MAX_VALUE) ? Long.MAX_VALUE : Math.max(1, deadlineNanos - System.nanoTime());
+    }
+
+    //takes on the best partial assignment of another solver's last solve (on this graph or a copy of it), and its stop
+    //status if it was stopped (or its search was incomplete) and adoptStatus is set
+    protected final void adoptOutcome(Solver solver, boolean adoptStatus) {
+        if (adoptStatus && solver.stopStatus != null && stopStatus == null) {
+            stopStatus = solver.stopStatus;
+        }
+        if (adoptStatus && solver.incomplete) {
+            incomplete = true;
+        }
+        if (solver.bestPartial != null) {
+            recordPartial(solver.bestPartialDepth, solver.bestPartial);
+        }
+    }
+
+    private boolean checkClockAndToken() {
+        if (cancellationToken != null && cancellationToken.isCancelled()) {
+            stopStatus = SolveStatus.CANCELLED;
+            return true;
+        }
+        if (System.nanoTime() > deadlineNanos) {
+            stopStatus = SolveStatus.TIMEOUT;
+            return true;
+        }
+        return false;
+    }
 
     //---- shared methods used in various solvers ----
     //finds an unassigned node (whose value is 0)
     protected Optional<Node> findUnassignedNode(Graph graph) {
-        Set<Node> allNodes = graph.getAllNodes();
-        for (Node node : allNodes){
+        for (Node node : graph.getAllNodes()){
             if(node.getValue() == 0){
                 return Optional.of(node);
             }
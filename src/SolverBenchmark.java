@@ -0,0 +1,113 @@
+import java.lang.management.*;
+import java.util.*;
+import java.util.function.*;
+
+public class SolverBenchmark {
+    /*
+    A self-contained benchmark harness in the style of JMH, for measuring the solvers and the graph and parser
+    machinery separately from any console output. Every benchmark runs warm-up iterations until the JIT has settled,
+    then measured iterations; it reports the mean time per operation with its standard deviation, the throughput,
+    and the bytes allocated per operation (the equivalent of JMH's GC profiler "gc.alloc.rate.norm").
+    Usage: java SolverBenchmark [filter] — only benchmarks whose name contains the filter are run.
+     */
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 10;
+    private static final long MIN_ITERATION_NANOS = 200_000_000L; //each iteration repeats its operation for at least this long
+    private static final int BOARDS_PER_SOLVER_OP = 100;
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static long sink; //consumes results, so the JIT cannot eliminate the measured work
+
+    public static void main(String[] args) {
+        String filter = (args.length > 0) ? args[0] : "";
+        List<int[][]> boards25 = SudokuParser.parseSudokuBoards("25clueSudokus").subList(0, BOARDS_PER_SOLVER_OP);
+        List<int[][]> boards30 = SudokuParser.parseSudokuBoards("30clueSudokus").subList(0, BOARDS_PER_SOLVER_OP);
+        List<int[][]> easyBoards = List.of(Main.getSuperEasySudokuProblem(), Main.getEasySudokuProblem());
+
+        System.out.printf("%-40s %14s %12s %16s %18s%n", "Benchmark", "ns/op", "+/- ns", "ops/s", "B/op (alloc)");
+
+        //solvers: one operation solves a corpus slice, board by board
+        Map<String, Function<Graph, Solver>> solvers = new LinkedHashMap<>();
+        solvers.put("DFSSolver", DFSSolver::new);
+        solvers.put("OptimizedSolver", OptimizedSolver::new);
+        solvers.put("DLXSolver", DLXSolver::new);
+        for (Map.Entry<String, Function<Graph, Solver>> solver : solvers.entrySet()) {
+            benchmark(solver.getKey() + ".solve[25clue]", filter, BOARDS_PER_SOLVER_OP, () -> solveAll(boards25, solver.getValue()));
+            benchmark(solver.getKey() + ".solve[30clue]", filter, BOARDS_PER_SOLVER_OP, () -> solveAll(boards30, solver.getValue()));
+        }
+        benchmark("BFSSolver.solve[easy]", filter, easyBoards.size(), () -> solveAll(easyBoards, BFSSolver::new)); //too slow for the corpora
+
+        //graph machinery on its own
+        int[][] board = boards25.get(0);
+        Graph builtGraph = new Graph(board);
+        builtGraph.buildSudokuEdges();
+        benchmark("Graph.new", filter, 1, () -> sink += new Graph(board).getNumVertices());
+        benchmark("Graph.new+buildSudokuEdges", filter, 1, () -> {
+            Graph graph = new Graph(board);
+            graph.buildSudokuEdges();
+            sink += graph.getNumEdges();
+        });
+        benchmark("Graph.copy", filter, 1, () -> sink += builtGraph.copy().getNumEdges());
+
+        //parsing a whole corpus
+        benchmark("SudokuParser.parseSudokuBoards[25clue]", filter, 1, () -> sink += SudokuParser.parseSudokuBoards("25clueSudokus").size());
+
+        if (sink == 42) {
+            System.out.println(); //never true in practice; keeps the sink observable
+        }
+    }
+
+    //---- helper methods ----
+    private static void solveAll(List<int[][]> boards, Function<Graph, Solver> solverFactory) {
+        for (int[][] board : boards) {
+            Graph graph = new Graph(board);
+            graph.buildSudokuEdges();
+            if (solverFactory.apply(graph).solve()) {
+                sink++;
+            }
+        }
+    }
+
+    //runs the warm-up and measured iterations of one benchmark, and prints its line of the report
+    private static void benchmark(String name, String filter, int boardsPerOp, Runnable operation) {
+        if (!name.contains(filter)) {
+            return;
+        }
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            runIteration(operation);
+        }
+
+        double[] nanosPerOp = new double[MEASUREMENT_ITERATIONS];
+        long totalOps = 0;
+        long totalAllocatedBytes = 0;
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            long threadId = Thread.currentThread().getId();
+            long allocatedBefore = THREAD_BEAN.getThreadAllocatedBytes(threadId);
+            long[] iteration = runIteration(operation);
+            totalAllocatedBytes += THREAD_BEAN.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            totalOps += iteration[1];
+            nanosPerOp[i] = (double) iteration[0] / iteration[1];
+        }
+
+        double mean = Arrays.stream(nanosPerOp).average().orElse(0);
+        double variance = Arrays.stream(nanosPerOp).map(x -> (x - mean) * (x - mean)).sum() / (MEASUREMENT_ITERATIONS - 1);
+        System.out.printf("%-40s %14.1f %12.1f %16.1f %18.1f%n", name, mean, Math.sqrt(variance),
+                1_000_000_000.0 / mean, (double) totalAllocatedBytes / totalOps);
+        if (boardsPerOp > 1) {
+            System.out.printf("%-40s %14.1f%n", "  (per board)", mean / boardsPerOp);
+        }
+    }
+
+    //repeats the operation for at least MIN_ITERATION_NANOS, and returns the elapsed time and the number of operations
+    private static long[] runIteration(Runnable operation) {
+        long ops = 0;
+        long startTime = System.nanoTime();
+        long elapsed;
+        do {
+            operation.run();
+            ops++;
+            elapsed = System.nanoTime() - startTime;
+        } while (elapsed < MIN_ITERATION_NANOS);
+        return new long[]{elapsed, ops};
+    }
+}
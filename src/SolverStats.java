@@ -0,0 +1,116 @@
+public class SolverStats {
+    /*
+    Counters describing the cost of a single solve. The solvers update them from their search loops; a disabled
+    instance ignores every update behind a single branch, so leaving statistics off costs next to nothing.
+     */
+    public static final String CSV_HEADER = "nodesVisited,guesses,backtracks,propagations,maxDepth,wallTimeNanos";
+
+    //attributes
+    private final boolean enabled;
+    private long nodesVisited;
+    private long guesses;
+    private long backtracks;
+    private long propagations;
+    private int maxDepth;
+    private long wallTimeNanos;
+
+    //constructor
+    public SolverStats(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    //getters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    //search states (recursive calls, expanded states) the solver went through
+    public long getNodesVisited() {
+        return nodesVisited;
+    }
+
+    //values tried at a branch point with more than one option
+    public long getGuesses() {
+        return guesses;
+    }
+
+    //assignments undone after their subtree failed
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    //values removed from domains by constraint propagation
+    public long getPropagations() {
+        return propagations;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getWallTimeNanos() {
+        return wallTimeNanos;
+    }
+
+    //methods used by the solvers
+    public void visit(int depth) {
+        if (enabled) {
+            nodesVisited++;
+            if (depth > maxDepth) {
+                maxDepth = depth;
+            }
+        }
+    }
+
+    public void guess() {
+        if (enabled) {
+            guesses++;
+        }
+    }
+
+    public void backtrack() {
+        if (enabled) {
+            backtracks++;
+        }
+    }
+
+    public void addPropagations(long count) {
+        if (enabled) {
+            propagations += count;
+        }
+    }
+
+    //adds the counters of a solve delegated to another solver
+    public void add(SolverStats other) {
+        if (enabled) {
+            nodesVisited += other.nodesVisited;
+            guesses += other.guesses;
+            backtracks += other.backtracks;
+            propagations += other.propagations;
+            maxDepth = Math.max(maxDepth, other.maxDepth);
+        }
+    }
+
+    void reset() {
+        nodesVisited = 0;
+        guesses = 0;
+        backtracks = 0;
+        propagations = 0;
+        maxDepth = 0;
+        wallTimeNanos = 0;
+    }
+
+    void setWallTimeNanos(long wallTimeNanos) {
+        this.wallTimeNanos = wallTimeNanos;
+    }
+
+    //---- output ----
+    public String toCsvRow() {
+        return nodesVisited + "," + guesses + "," + backtracks + "," + propagations + "," + maxDepth + "," + wallTimeNanos;
+    }
+
+    public String toJson() {
+        return "{\"nodesVisited\":" + nodesVisited + ",\"guesses\":" + guesses + ",\"backtracks\":" + backtracks
+                + ",\"propagations\":" + propagations + ",\"maxDepth\":" + maxDepth + ",\"wallTimeNanos\":" + wallTimeNanos + "}";
+    }
+}
@@ -0,0 +1,334 @@
+import java.util.*;
+
+public class SolvingSession {
+    /*
+    A long-lived board for an interactive front end: one Graph is built when the session starts, and every edit after
+    that is a single changeValue on it, so the candidate domains (the graph's blocked masks) stay up to date without
+    rebuilding anything. On top of the graph, each edit updates the cells in conflict with a peer, the number of
+    copies of each digit still to place and the undo history, touching only the edited cell and its peers.
+    Queries:
+    - getHint runs the logical techniques on a copy of the candidates, cheapest first, and returns the first cell
+      they decide, with the hardest technique it needed.
+    - isSolvable answers from the last solution found while the board still agrees with it (a counter of the filled
+      cells that disagree is kept with every edit). Otherwise it searches a copy of the board, sharing a NogoodTable
+      across checks so that states refuted by earlier checks are not searched again.
+     */
+    private static final long NOGOOD_TABLE_BYTES = 1 << 20;
+
+    //a cell the logical techniques can decide, and the hardest technique needed to decide it
+    public static final class Hint {
+        private final int cell;
+        private final int value;
+        private final String technique;
+
+        private Hint(int cell, int value, String technique) {
+            this.cell = cell;
+            this.value = value;
+            this.technique = technique;
+        }
+
+        public int getCell() {
+            return cell;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        public String getTechnique() {
+            return technique;
+        }
+
+        @Override
+        public String toString() {
+            return technique + ": " + value + " at cell " + cell;
+        }
+    }
+
+    //attributes
+    private final Graph graph;
+    private final SudokuTopology topology;
+    private final List<DeductionStage> stages = DeductionPipeline.standard().getStages();
+    private final NogoodTable nogoods = new NogoodTable(NOGOOD_TABLE_BYTES);
+
+    //the state kept up to date by every edit
+    private final boolean[] conflicting; //whether each cell holds the same value as one of its peers
+    private int numConflicting = 0;
+    private final int[] remaining; //the copies of each digit still to be placed (negative if there are too many)
+    private int numEmpty = 0;
+    private int[] solution; //the last solution found by isSolvable, or null
+    private int numMismatches; //the filled cells whose value differs from the solution
+
+    //the history of edits: entries before historyPosition can be undone, the ones from it onwards redone
+    private int[] historyCells = new int[64];
+    private int[] historyOldValues = new int[64];
+    private int[] historyNewValues = new int[64];
+    private int historySize = 0;
+    private int historyPosition = 0;
+
+    private final int[] domains; //scratch space for hints
+
+    //constructors
+    public SolvingSession(int[][] board) { //the non-zero values of the board are its clues
+        this(new Graph(board));
+    }
+
+    public SolvingSession(Graph graph) {
+        this.topology = graph.getTopology();
+        if (topology == null) {
+            throw new IllegalArgumentException("A solving session needs a graph constructed from a Sudoku board");
+        }
+        if (graph.getNumEdges() == 0) {
+            graph.buildSudokuEdges();
+        }
+        this.graph = graph;
+        int numCells = topology.getNumCells();
+        this.conflicting = new boolean[numCells];
+        this.remaining = new int[topology.getSize() + 1];
+        this.domains = new int[numCells];
+        Arrays.fill(remaining, topology.getSize());
+        for (int cell = 0; cell < numCells; cell++) {
+            int value = graph.getNode(cell).getValue();
+            if (value == 0) {
+                numEmpty++;
+            }
+            else {
+                remaining[value]--;
+            }
+            updateConflict(cell);
+        }
+    }
+
+    //getters
+    public Graph getGraph() {
+        return graph;
+    }
+
+    public int getValue(int cell) {
+        return graph.getNode(checkCell(cell)).getValue();
+    }
+
+    public boolean isClue(int cell) {
+        return graph.getNode(checkCell(cell)).isFixed();
+    }
+
+    //the values no peer holds, as a bitmask (bit v for value v)
+    public int getCandidates(int cell) {
+        return graph.getNode(checkCell(cell)).getCandidateMask();
+    }
+
+    public boolean isConflicting(int cell) {
+        return conflicting[checkCell(cell)];
+    }
+
+    //the number of cells holding the same value as one of their peers
+    public int getNumConflicts() {
+        return numConflicting;
+    }
+
+    //the cells holding the same value as one of their peers, in increasing order
+    public int[] getConflicts() {
+        int[] cells = new int[numConflicting];
+        int count = 0;
+        for (int cell = 0; count < numConflicting; cell++) {
+            if (conflicting[cell]) {
+                cells[count++] = cell;
+            }
+        }
+        return cells;
+    }
+
+    //how many more copies of the digit the board needs (negative if it already holds too many)
+    public int getRemaining(int value) {
+        if (value < 1 || value > topology.getSize()) {
+            throw new IllegalArgumentException("Values go from 1 to " + topology.getSize() + ", got " + value);
+        }
+        return remaining[value];
+    }
+
+    public int getNumEmpty() {
+        return numEmpty;
+    }
+
+    //whether every cell is filled without any conflict: the board is solved
+    public boolean isComplete() {
+        return numEmpty == 0 && numConflicting == 0;
+    }
+
+    public boolean canUndo() {
+        return historyPosition > 0;
+    }
+
+    public boolean canRedo() {
+        return historyPosition < historySize;
+    }
+
+    //methods
+    //puts a value in a cell (0 to clear it); the edits that could have been redone are dropped
+    public void place(int cell, int value) {
+        Node node = graph.getNode(checkCell(cell));
+        if (node.isFixed()) {
+            throw new IllegalArgumentException("Cell " + cell + " holds a clue");
+        }
+        if (value < 0 || value > topology.getSize()) {
+            throw new IllegalArgumentException("Values go from 1 to " + topology.getSize() + " (0 to clear), got " + value);
+        }
+        int oldValue = node.getValue();
+        if (value == oldValue) {
+            return;
+        }
+        if (historyPosition == historyCells.length) {
+            historyCells = Arrays.copyOf(historyCells, 2 * historyPosition);
+            historyOldValues = Arrays.copyOf(historyOldValues, 2 * historyPosition);
+            historyNewValues = Arrays.copyOf(historyNewValues, 2 * historyPosition);
+        }
+        historyCells[historyPosition] = cell;
+        historyOldValues[historyPosition] = oldValue;
+        historyNewValues[historyPosition] = value;
+        historySize = ++historyPosition;
+        apply(cell, oldValue, value);
+    }
+
+    //reverts the last edit, returning false if there is none
+    public boolean undo() {
+        if (!canUndo()) {
+            return false;
+        }
+        historyPosition--;
+        apply(historyCells[historyPosition], historyNewValues[historyPosition], historyOldValues[historyPosition]);
+        return true;
+    }
+
+    //makes the last undone edit again, returning false if there is none
+    public boolean redo() {
+        if (!canRedo()) {
+            return false;
+        }
+        apply(historyCells[historyPosition], historyOldValues[historyPosition], historyNewValues[historyPosition]);
+        historyPosition++;
+        return true;
+    }
+
+    //the next cell the logical techniques can decide from the current board, or none if the board has conflicts, a
+    //contradiction, or needs guessing to go on
+    public Optional<Hint> getHint() {
+        if (numConflicting > 0) {
+            return Optional.empty();
+        }
+        for (int cell = 0; cell < domains.length; cell++) {
+            Node node = graph.getNode(cell);
+            domains[cell] = (node.getValue() != 0) ? (1 << node.getValue()) : node.getCandidateMask();
+            if (domains[cell] == 0) {
+                return Optional.empty(); //an empty cell without candidates
+            }
+        }
+        Optional<Hint> single = findDecidedCell(stages.get(0).getName());
+        if (single.isPresent()) {
+            return single;
+        }
+
+        //applies the techniques as a DeductionPipeline does, until one of them decides an empty cell
+        DeductionStage hardest = null;
+        int stageIndex = 0;
+        while (stageIndex < stages.size()) {
+            DeductionStage stage = stages.get(stageIndex);
+            int removed = stage.apply(domains, topology);
+            if (removed == DeductionStage.CONTRADICTION) {
+                return Optional.empty();
+            }
+            if (removed == 0) {
+                stageIndex++;
+                continue;
+            }
+            if (hardest == null || stage.getDifficulty() > hardest.getDifficulty()) {
+                hardest = stage;
+            }
+            Optional<Hint> hint = findDecidedCell(hardest.getName());
+            if (hint.isPresent()) {
+                return hint;
+            }
+            stageIndex = 0;
+        }
+        return Optional.empty();
+    }
+
+    //whether the board can still be completed from its current values
+    public boolean isSolvable() {
+        if (numConflicting > 0) {
+            return false;
+        }
+        if (solution != null && numMismatches == 0) {
+            return true; //the last solution found still extends the board
+        }
+
+        Graph copy = graph.copy();
+        OptimizedSolver solver = new OptimizedSolver(copy);
+        solver.setNogoodTable(nogoods);
+        if (!solver.solve()) {
+            return false;
+        }
+        solution = new int[domains.length];
+        for (int cell = 0; cell < solution.length; cell++) {
+            solution[cell] = copy.getNode(cell).getValue();
+        }
+        numMismatches = 0;
+        return true;
+    }
+
+    //---- helper methods ----
+    //changes a cell's value and updates the state that depends on it
+    private void apply(int cell, int oldValue, int newValue) {
+        graph.getNode(cell).changeValue(newValue);
+        if (oldValue == 0) {
+            numEmpty--;
+        }
+        else {
+            remaining[oldValue]++;
+        }
+        if (newValue == 0) {
+            numEmpty++;
+        }
+        else {
+            remaining[newValue]--;
+        }
+        if (solution != null) {
+            numMismatches -= (oldValue != 0 && oldValue != solution[cell]) ? 1 : 0;
+            numMismatches += (newValue != 0 && newValue != solution[cell]) ? 1 : 0;
+        }
+
+        //only the cell and the peers holding either value can change their conflict
+        updateConflict(cell);
+        for (int peer : topology.getPeers(cell)) {
+            int peerValue = graph.getNode(peer).getValue();
+            if (peerValue != 0 && (peerValue == oldValue || peerValue == newValue)) {
+                updateConflict(peer);
+            }
+        }
+    }
+
+    private void updateConflict(int cell) {
+        int value = graph.getNode(cell).getValue();
+        boolean conflict = value != 0 && (graph.getBlockedMask(cell) & (1 << value)) != 0;
+        if (conflict != conflicting[cell]) {
+            conflicting[cell] = conflict;
+            numConflicting += conflict ? 1 : -1;
+        }
+    }
+
+    //the first empty cell whose domain has a single value, as a hint
+    private Optional<Hint> findDecidedCell(String technique) {
+        for (int cell = 0; cell < domains.length; cell++) {
+            if (graph.getNode(cell).getValue() == 0 && Integer.bitCount(domains[cell]) == 1) {
+                return Optional.of(new Hint(cell, Integer.numberOfTrailingZeros(domains[cell]), technique));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private int checkCell(int cell) {
+        if (cell < 0 || cell >= domains.length) {
+            throw new IndexOutOfBoundsException("Cell " + cell + " of a board with " + domains.length + " cells");
+        }
+        return cell;
+    }
+}
@@ -1,7 +1,16 @@
 import java.io.*;
+import java.nio.file.*;
 import java.util.*;
+import java.util.stream.*;
 
 public class SudokuParser {
+    /*
+    Boards are read one per line, row by row. A line either holds one character per cell, where "0" or "." is an empty
+    cell and values above 9 continue with letters ("A" = 10, ..., "P" = 25, in either case), or separates its cells
+    with spaces or commas, so that every cell can be a multi-character number. The board's size (9x9, 16x16, 25x25)
+    follows from the number of cells.
+     */
+
     //extracts all one-line Sudoku boards from the file
     public static List<int[][]> parseSudokuBoards(String fileName) {
         List<int[][]> sudokuBoards = new ArrayList<>();
@@ -24,14 +33,80 @@ public class SudokuParser {
         return sudokuBoards;
     }
 
-    //turns a single line of text file into a 9x9 Sudoku board
-    private static int[][] parseSudokuLine(String line) {
-        int[][] board = new int[9][9];
-        for (int i = 0; i < line.length(); i++) {
-            int row = i / 9; //calculates the row index
-            int col = i % 9; //calculates the column index
-            board[row][col] = Character.getNumericValue(line.charAt(i));
+    //streams the boards of a file of any size with bounded memory (see PuzzleReader); the stream must be closed
+    public static Stream<int[]> streamSudokuBoards(Path file) throws IOException {
+        return PuzzleReader.stream(file);
+    }
+
+    public static Stream<int[]> streamSudokuBoards(Path file, int boxSize) throws IOException {
+        return PuzzleReader.stream(file, boxSize);
+    }
+
+    //turns a single line of text file into a Sudoku board
+    public static int[][] parseSudokuLine(String line) {
+        int[] cells;
+        if (line.indexOf(' ') >= 0 || line.indexOf(',') >= 0 || line.indexOf('\t') >= 0) {
+            String[] tokens = line.trim().split("[\\s,]+");
+            cells = new int[tokens.length];
+            for (int i = 0; i < tokens.length; i++) {
+                cells[i] = tokens[i].equals(".") ? 0 : parseNumber(tokens[i]);
+            }
+        }
+        else {
+            cells = new int[line.length()];
+            for (int i = 0; i < line.length(); i++) {
+                cells[i] = decodeCell(line.charAt(i));
+                if (cells[i] < 0) {
+                    throw new IllegalArgumentException("Unexpected character '" + line.charAt(i) + "' in cell " + (i + 1));
+                }
+            }
+        }
+
+        int size = SudokuTopology.forNumCells(cells.length).getSize();
+        int[][] board = new int[size][size];
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] < 0 || cells[i] > size) {
+                throw new IllegalArgumentException("Cell " + (i + 1) + " holds " + cells[i] + ", outside the values 0 to " + size);
+            }
+            board[i / size][i % size] = cells[i]; //row and column indices
         }
         return board;
     }
+
+    //the one-line form of a board read by parseSudokuLine: one character per cell, "0" for an empty cell
+    public static String toSudokuLine(int[] cells) {
+        StringBuilder line = new StringBuilder(cells.length);
+        for (int value : cells) {
+            line.append(Character.toUpperCase(Character.forDigit(value, 36)));
+        }
+        return line.toString();
+    }
+
+    //the value of a one-character cell ("." and "0" both represent an empty cell), or -1 if it is not one; only ASCII
+    //digits and letters count, so the String and the byte parsers (see PuzzleReader) accept the same characters
+    static int decodeCell(char c) {
+        if (c == '.') {
+            return 0;
+        }
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    //---- helper methods ----
+    private static int parseNumber(String token) {
+        try {
+            return Integer.parseInt(token);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unexpected cell \"" + token + "\"", e);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,148 @@
+public final class SudokuTopology {
+    /*
+    Precomputed, read-only layout tables for a Sudoku grid: the position of every cell, the peers of every cell
+    (the other cells sharing a row, column or box with it) and the cells of every house (row, column or box).
+    A board with boxes of boxSize x boxSize cells has size = boxSize^2 rows, columns and values, and its cells are
+    numbered 0 through size^2 - 1 in row-major order. The tables are built once per box size and shared by every
+    Graph, so the arrays returned by the getters must never be modified.
+     */
+    public static final int MAX_BOX_SIZE = 5; //candidate masks are ints with bit v for value v, so values stop at 25
+    private static final SudokuTopology[] TOPOLOGIES = new SudokuTopology[MAX_BOX_SIZE + 1];
+    public static final SudokuTopology STANDARD = forBoxSize(3);
+
+    //attributes
+    private final int boxSize;
+    private final int size;
+    private final int numCells;
+    private final Position[] positions;
+    private final int[][] peers;
+    private final int[][] houses; //rows first, then columns, then boxes
+    private final int[][] cellHouses; //the row, column and box house of each cell
+    private final int numEdges;
+
+    //constructor
+    private SudokuTopology(int boxSize) {
+        this.boxSize = boxSize;
+        this.size = boxSize * boxSize;
+        this.numCells = size * size;
+
+        positions = new Position[numCells];
+        cellHouses = new int[numCells][];
+        houses = new int[3 * size][size];
+        int[] houseFill = new int[3 * size];
+
+        for (int cell = 0; cell < numCells; cell++) {
+            int row = cell / size;
+            int col = cell % size;
+            int box = (row / boxSize) * boxSize + (col / boxSize);
+            positions[cell] = new Position(row, col);
+            cellHouses[cell] = new int[]{row, size + col, 2 * size + box};
+            for (int house : cellHouses[cell]) {
+                houses[house][houseFill[house]++] = cell;
+            }
+        }
+
+        //the peers of a cell are the union of its three houses, excluding the cell itself
+        int numPeers = 3 * (size - 1) - 2 * (boxSize - 1);
+        peers = new int[numCells][numPeers];
+        boolean[] isPeer = new boolean[numCells];
+        for (int cell = 0; cell < numCells; cell++) {
+            int count = 0;
+            for (int house : cellHouses[cell]) {
+                for (int other : houses[house]) {
+                    if (other != cell && !isPeer[other]) {
+                        isPeer[other] = true;
+                        peers[cell][count++] = other;
+                    }
+                }
+            }
+            for (int other : peers[cell]) {
+                isPeer[other] = false;
+            }
+        }
+        numEdges = numCells * numPeers / 2;
+    }
+
+    //the shared layout of boards with the given box size (3 for a standard 9x9 board, 4 for 16x16, 5 for 25x25)
+    public static synchronized SudokuTopology forBoxSize(int boxSize) {
+        if (boxSize < 1 || boxSize > MAX_BOX_SIZE) {
+            throw new IllegalArgumentException("Box sizes from 1 to " + MAX_BOX_SIZE + " are supported, got " + boxSize);
+        }
+        if (TOPOLOGIES[boxSize] == null) {
+            TOPOLOGIES[boxSize] = new SudokuTopology(boxSize);
+        }
+        return TOPOLOGIES[boxSize];
+    }
+
+    //the shared layout of boards with the given number of cells (81 for a standard 9x9 board, 256 for 16x16, 625 for 25x25)
+    public static SudokuTopology forNumCells(int numCells) {
+        StringBuilder expected = new StringBuilder();
+        for (int boxSize = 1; boxSize <= MAX_BOX_SIZE; boxSize++) {
+            int size = boxSize * boxSize;
+            if (size * size == numCells) {
+                return forBoxSize(boxSize);
+            }
+            expected.append(boxSize == 1 ? "" : (boxSize == MAX_BOX_SIZE) ? " or " : ", ").append(size * size);
+        }
+        throw new IllegalArgumentException("A Sudoku board must have " + expected + " cells, got " + numCells);
+    }
+
+    //the shared layout of boards with the given number of rows, which must be a square
+    public static SudokuTopology forSize(int size) {
+        int boxSize = (int) Math.round(Math.sqrt(size));
+        if (boxSize * boxSize != size) {
+            throw new IllegalArgumentException("A Sudoku board must have a square number of rows, got " + size);
+        }
+        return forBoxSize(boxSize);
+    }
+
+    //getters
+    public int getBoxSize() {
+        return boxSize;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    //bitmask with bits 1 through size set: bit v represents the value v
+    public int getAllValuesMask() {
+        return (1 << (size + 1)) - 2;
+    }
+
+    public int getNumCells() {
+        return numCells;
+    }
+
+    public int getNumEdges() {
+        return numEdges;
+    }
+
+    public int getCellIndex(int row, int col) {
+        return row * size + col;
+    }
+
+    public Position getPosition(int cell) {
+        return positions[cell];
+    }
+
+    public int[] getPeers(int cell) {
+        return peers[cell];
+    }
+
+    public int[][] getAllPeers() {
+        return peers;
+    }
+
+    public int getNumHouses() {
+        return houses.length;
+    }
+
+    public int[] getHouse(int house) {
+        return houses[house];
+    }
+
+    public int[] getHousesOfCell(int cell) {
+        return cellHouses[cell];
+    }
+}